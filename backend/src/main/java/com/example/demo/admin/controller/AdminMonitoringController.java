@@ -43,6 +43,9 @@ public class AdminMonitoringController {
         // Live Traffic Data
         allData.put("trafficData", monitoringService.getTrafficData());
 
+        // Search pipeline (caches etc.)
+        allData.put("searchPipeline", monitoringService.getSearchPipelineStats());
+
         // Chart Data for all components
         Map<String, Object> chartData = new HashMap<>();
         chartData.put("traffic", monitoringService.getTrafficChartData());
@@ -62,6 +65,11 @@ public class AdminMonitoringController {
         return ResponseEntity.ok(allData);
     }
 
+    @GetMapping("/search-pipeline")
+    public ResponseEntity<Map<String, Object>> getSearchPipelineStats() {
+        return ResponseEntity.ok(monitoringService.getSearchPipelineStats());
+    }
+
     // Individual chart endpoints (for backward compatibility)
     @GetMapping("/charts/traffic")
     public ResponseEntity<List<Map<String, Object>>> getTrafficChartData() {
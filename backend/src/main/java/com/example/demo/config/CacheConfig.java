@@ -0,0 +1,59 @@
+package com.example.demo.config;
+
+import com.example.demo.ip.client.SearchRefreshScheduler;
+import com.example.demo.ip.client.StaleWhileRevalidateCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    public static final String PATENT_SEARCH_CACHE = "patent-search";
+
+    /**
+     * Bounded, expiring backend for the "patent-search" cache.
+     *
+     * Entries are weighed by their result count. Every entry weighs at least
+     * maxWeight / maxEntries, so the weight bound also caps the entry count
+     * (Caffeine does not allow maximumSize and maximumWeight together).
+     *
+     * Pages older than refreshAfterWrite are still served, and refreshed in
+     * the background by {@link SearchRefreshScheduler} (stale-while-revalidate);
+     * expireAfterWrite is the hard limit.
+     */
+    @Bean
+    public CacheManager cacheManager(
+            SearchRefreshScheduler refreshScheduler,
+            @Value("${ip.cache.patent-search.max-entries:2000}") long maxEntries,
+            @Value("${ip.cache.patent-search.max-weight:40000}") long maxWeight,
+            @Value("${ip.cache.patent-search.expire-after-write:6h}") Duration expireAfterWrite,
+            @Value("${ip.cache.patent-search.refresh-after-write:1h}") Duration refreshAfterWrite) {
+
+        int minEntryWeight = (int) Math.max(1, maxWeight / Math.max(1, maxEntries));
+
+        CaffeineCacheManager manager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return PATENT_SEARCH_CACHE.equals(name)
+                        ? new StaleWhileRevalidateCache(name, cache, refreshAfterWrite, refreshScheduler)
+                        : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        manager.setAllowNullValues(false);
+        manager.setCaffeine(Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Object key, Object value) -> Math.max(minEntryWeight, ((List<?>) value).size()))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+        manager.setCacheNames(List.of(PATENT_SEARCH_CACHE));
+        return manager;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import com.example.demo.monitoring.TimingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a {@link TimingDataSource}, so every
+ * query (JPA and JdbcTemplate alike) counts towards the JPA phase on the
+ * monitoring dashboard.
+ */
+@Configuration
+public class DataSourceTimingConfig {
+
+    @Bean
+    public static BeanPostProcessor timingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TimingDataSource)) {
+                    return new TimingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeout settings of one outbound HTTP client,
+ * bound from http.client.&lt;name&gt;.* (e.g. http.client.serpapi.read-timeout=7s).
+ *
+ * @param connectTimeout TCP/TLS connect timeout
+ * @param readTimeout    max wait for response data once the request is sent
+ * @param poolTimeout    max wait for a free pooled connection
+ * @param maxTotal       connections across all hosts
+ * @param maxPerRoute    connections per host
+ * @param keepAlive      idle connections are kept (and reused) at most this long
+ */
+public record HttpClientSettings(
+        @DefaultValue("2s") Duration connectTimeout,
+        @DefaultValue("10s") Duration readTimeout,
+        @DefaultValue("2s") Duration poolTimeout,
+        @DefaultValue("20") int maxTotal,
+        @DefaultValue("10") int maxPerRoute,
+        @DefaultValue("30s") Duration keepAlive) {
+}
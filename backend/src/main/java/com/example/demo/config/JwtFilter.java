@@ -5,6 +5,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import com.example.demo.monitoring.RequestTiming;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -26,7 +27,6 @@ public class JwtFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
 
         return path.startsWith("/auth")
-                || path.equals("/api/ip/search")
                 || path.startsWith("/h2-console")
                 || path.startsWith("/api/admin/monitoring")
                 || "OPTIONS".equalsIgnoreCase(request.getMethod());
@@ -43,7 +43,6 @@ public class JwtFilter extends OncePerRequestFilter {
 
         // ✅ SKIP JWT FOR PUBLIC ENDPOINTS
         if (path.startsWith("/auth")
-                || path.equals("/api/ip/search")
                 || path.startsWith("/h2-console")
                 || path.startsWith("/api/admin/monitoring")
                 || "OPTIONS".equalsIgnoreCase(request.getMethod())) {
@@ -52,6 +51,7 @@ public class JwtFilter extends OncePerRequestFilter {
             return; // 🔥 CRITICAL
         }
 
+        long jwtStart = RequestTiming.start();
         String header = request.getHeader("Authorization");
         String token = null;
         String email = null;
@@ -85,6 +85,7 @@ public class JwtFilter extends OncePerRequestFilter {
         } catch (Exception ex) {
             System.out.println("JWT filter error: " + ex.getMessage());
         }
+        RequestTiming.stop(RequestTiming.Phase.JWT, jwtStart);
 
         filterChain.doFilter(request, response);
     }
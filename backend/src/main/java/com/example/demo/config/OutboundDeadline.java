@@ -0,0 +1,57 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * A deadline for the outbound HTTP calls made on the current thread.
+ * {@link PooledHttpClientFactory} caps the wait for a pooled connection and
+ * the wait for response data at the time left, so a call made for a caller
+ * that has already given up fails instead of holding its thread and
+ * connection for the full read timeout.
+ */
+public final class OutboundDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private OutboundDeadline() {
+    }
+
+    /**
+     * Runs call with the given time budget for its outbound HTTP calls.
+     */
+    public static <T> T within(Duration budget, Supplier<T> call) {
+        Long previous = DEADLINE_NANOS.get();
+        DEADLINE_NANOS.set(System.nanoTime() + budget.toNanos());
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                DEADLINE_NANOS.set(previous);
+            } else {
+                DEADLINE_NANOS.remove();
+            }
+        }
+    }
+
+    /**
+     * Time left before the current thread's deadline (at least 1ms), or null
+     * when there is no deadline.
+     */
+    static Duration remaining() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return null;
+        }
+        return Duration.ofNanos(Math.max(1_000_000, deadline - System.nanoTime()));
+    }
+
+    /**
+     * Whether the current thread has a deadline and it has passed; a call
+     * that failed then timed out on the caller's budget, not on the server.
+     */
+    public static boolean hasPassed() {
+        Long deadline = DEADLINE_NANOS.get();
+        return deadline != null && System.nanoTime() - deadline >= 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.config;
+
+import com.example.demo.monitoring.HttpTimingInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds RestTemplates over Apache HttpClient 5 with a keep-alive connection
+ * pool per client, and keeps hold of the pools for stats and shutdown.
+ * Calls made under an {@link OutboundDeadline} wait for a connection and for
+ * response data no longer than the deadline allows.
+ */
+@Slf4j
+public class PooledHttpClientFactory implements DisposableBean {
+
+    // Connections are recycled after this long even when busy, so DNS changes are picked up
+    private static final TimeValue CONNECTION_TIME_TO_LIVE = TimeValue.of(5, TimeUnit.MINUTES);
+    // Idle connections are checked before reuse after this long, to skip server-closed sockets
+    private static final TimeValue VALIDATE_AFTER_INACTIVITY = TimeValue.ofSeconds(2);
+
+    private final Map<String, PooledClient> clients = new ConcurrentHashMap<>();
+
+    public RestTemplate create(String name, HttpClientSettings settings) {
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxTotal())
+                .setMaxConnPerRoute(settings.maxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(settings.readTimeout()))
+                        .setTimeToLive(CONNECTION_TIME_TO_LIVE)
+                        .setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY)
+                        .build())
+                .build();
+
+        TimeValue maxKeepAlive = TimeValue.of(settings.keepAlive());
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(settings.poolTimeout()))
+                        .setResponseTimeout(Timeout.of(settings.readTimeout()))
+                        .build())
+                // Honour the server's Keep-Alive header, but never keep a connection longer than configured
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue offered = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return TimeValue.isPositive(offered) && offered.compareTo(maxKeepAlive) < 0 ? offered : maxKeepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(maxKeepAlive)
+                .build();
+
+        clients.put(name, new PooledClient(httpClient, connectionManager, settings));
+        log.info("HTTP client '{}': connect {} / read {}, {} connections ({} per host)",
+                name, settings.connectTimeout(), settings.readTimeout(), settings.maxTotal(), settings.maxPerRoute());
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setHttpContextFactory((method, uri) -> deadlineContext(settings));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new HttpTimingInterceptor());
+        return restTemplate;
+    }
+
+    /**
+     * A context with the pool and read timeouts cut to the current thread's
+     * deadline, or null (client defaults) when it has none.
+     */
+    static HttpClientContext deadlineContext(HttpClientSettings settings) {
+        Duration remaining = OutboundDeadline.remaining();
+        if (remaining == null) {
+            return null;
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(min(settings.poolTimeout(), remaining)))
+                .setResponseTimeout(Timeout.of(min(settings.readTimeout(), remaining)))
+                .build());
+        return context;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        clients.forEach((name, client) -> {
+            PoolStats total = client.connectionManager().getTotalStats();
+
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("leased", total.getLeased());
+            pool.put("available", total.getAvailable());
+            pool.put("pending", total.getPending());
+            pool.put("max", total.getMax());
+            pool.put("maxPerRoute", client.settings().maxPerRoute());
+            pool.put("routes", client.connectionManager().getRoutes().size());
+            pool.put("connectTimeoutMs", client.settings().connectTimeout().toMillis());
+            pool.put("readTimeoutMs", client.settings().readTimeout().toMillis());
+            stats.put(name, pool);
+        });
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        clients.forEach((name, client) -> {
+            try {
+                client.httpClient().close();
+            } catch (IOException e) {
+                log.warn("Failed to close HTTP client '{}'", name, e);
+            }
+        });
+    }
+
+    private record PooledClient(
+            CloseableHttpClient httpClient,
+            PoolingHttpClientConnectionManager connectionManager,
+            HttpClientSettings settings) {
+    }
+}
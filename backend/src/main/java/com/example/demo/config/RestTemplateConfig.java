@@ -1,14 +1,45 @@
 package com.example.demo.config;
 
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * One pooled RestTemplate per outbound API, so a slow provider can only
+ * exhaust its own connections and each gets its own timeouts
+ * (http.client.serpapi.*, http.client.uspto.*, http.client.default.*).
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    public static final String SERPAPI = "serpApiRestTemplate";
+    public static final String USPTO = "usptoRestTemplate";
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public PooledHttpClientFactory pooledHttpClientFactory() {
+        return new PooledHttpClientFactory();
+    }
+
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(PooledHttpClientFactory factory, Environment environment) {
+        return factory.create("default", settings(environment, "default"));
+    }
+
+    @Bean(SERPAPI)
+    public RestTemplate serpApiRestTemplate(PooledHttpClientFactory factory, Environment environment) {
+        return factory.create("serpapi", settings(environment, "serpapi"));
+    }
+
+    @Bean(USPTO)
+    public RestTemplate usptoRestTemplate(PooledHttpClientFactory factory, Environment environment) {
+        return factory.create("uspto", settings(environment, "uspto"));
+    }
+
+    private static HttpClientSettings settings(Environment environment, String name) {
+        return Binder.get(environment).bindOrCreate("http.client." + name, HttpClientSettings.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.example.demo.ip.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-minute allowance of SerpAPI calls for background work (token bucket):
+ * holds up to callsPerMinute tokens and refills continuously.
+ */
+public class CallBudget {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long refilledAt;
+
+    public CallBudget(int callsPerMinute, LongSupplier nanoClock) {
+        this.capacity = callsPerMinute;
+        this.tokensPerNano = callsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.nanoClock = nanoClock;
+        this.tokens = callsPerMinute;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * Returns a token taken for a call that was never made.
+     */
+    public synchronized void refund() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    public long getCallsPerMinute() {
+        return (long) capacity;
+    }
+
+    public synchronized long getRemaining() {
+        refill();
+        return (long) tokens;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -1,106 +1,100 @@
 package com.example.demo.ip.client;
 
+import com.example.demo.config.OutboundDeadline;
+import com.example.demo.config.RestTemplateConfig;
 import com.example.demo.ip.dto.IPSearchResultDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.cache.annotation.Cacheable;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ExternalPatentClient {
 
+    private static final String NO_RESULTS_ERROR = "hasn't returned any results";
+
+    // Returned (by identity) when no request was sent, see wasSkipped
+    private static final List<IPSearchResultDTO> NOT_CALLED = Collections.unmodifiableList(new ArrayList<>());
+
+    @Qualifier(RestTemplateConfig.SERPAPI)
     private final RestTemplate restTemplate;
+    private final SearchRequestCoalescer coalescer;
+    private final ExternalSearchCircuitBreaker circuitBreaker;
+    private final SerpApiRateLimiter rateLimiter;
+    private final SerpApiResponseParser responseParser;
+    private final com.example.demo.monitoring.PlatformMetrics platformMetrics;
 
     @Value("${SERPAPI_KEY}")
     private String apiKey;
 
     /*
      * =======================
-     * DATE NORMALIZATION
+     * SEARCH (NO PAGINATION)
      * =======================
      */
-    private String normalizeDate(Object value) {
-        if (value == null)
-            return null;
-
-        String date = value.toString().trim();
-
-        if (date.matches("\\d{4}-\\d{2}-\\d{2}"))
-            return date;
-        if (date.matches("\\d{4}-\\d{2}"))
-            return date + "-01";
-        if (date.matches("\\d{4}"))
-            return date + "-01-01";
-
-        return null;
+    // Empty lists are the error fallbacks below, so they are never cached
+    @Cacheable(value = "patent-search",
+            key = "new com.example.demo.ip.client.PatentSearchKey(#query, #limit, #start)",
+            unless = "#result == null || #result.isEmpty()")
+    public List<IPSearchResultDTO> searchPatents(String query, int limit, int start) {
+        return fetchPatents(query, limit, start);
     }
 
-    /*
-     * =======================
-     * COUNTRY EXTRACTION
-     * =======================
+    /**
+     * Uncached SerpAPI call; also used by the cache to refresh an entry in place.
+     * Identical concurrent requests share a single outbound call.
      */
-    private String extractCountryFromPublication(String publicationNumber) {
-        if (publicationNumber == null || publicationNumber.length() < 2) {
-            return "UNKNOWN";
-        }
-
-        String country = publicationNumber.substring(0, 2).toUpperCase();
-
-        return country.matches("[A-Z]{2}") ? country : "UNKNOWN";
+    public List<IPSearchResultDTO> fetchPatents(String query, int limit, int start) {
+        return coalescer.execute(PatentSearchKey.normalized(query, limit, start),
+                () -> callSerpApi(query, limit, start));
     }
 
-    /*
-     * =======================
-     * LEGAL STATUS (TRANSPARENT)
-     * =======================
+    /**
+     * True when a search returned nothing because no request was sent
+     * (missing key, breaker open, rate or quota limit), so a caller that
+     * paid for the call from a budget can refund it.
      */
-    private String deriveLegalStatus(Map<String, Object> patent) {
+    public static boolean wasSkipped(List<IPSearchResultDTO> result) {
+        return result == NOT_CALLED;
+    }
 
-        if (patent.get("grant_date") != null) {
-            return "GRANTED";
-        }
+    private List<IPSearchResultDTO> callSerpApi(String query, int limit, int start) {
 
-        if (patent.get("publication_date") != null) {
-            return "PUBLISHED";
+        if (apiKey == null || apiKey.isBlank()) {
+            log.error("SERPAPI KEY MISSING");
+            platformMetrics.recordSerpApiSkipped("missing_key");
+            return NOT_CALLED;
         }
 
-        if (patent.get("filing_date") != null) {
-            return "FILED";
+        if (!circuitBreaker.tryAcquire()) {
+            log.debug("SerpAPI circuit breaker open, skipping '{}' (start {})", query, start);
+            platformMetrics.recordSerpApiSkipped("breaker_open");
+            return NOT_CALLED;
         }
 
-        return "UNKNOWN";
-    }
-
-    /*
-     * =======================
-     * SEARCH (NO PAGINATION)
-     * =======================
-     */
-    @Cacheable(value = "patent-search", key = "#query + '-' + #limit + '-' + #start")
-    public List<IPSearchResultDTO> searchPatents(String query, int limit, int start) {
-
-        if (apiKey == null || apiKey.isBlank()) {
-            log.error("SERPAPI KEY MISSING");
-            return Collections.emptyList();
+        if (!rateLimiter.acquire()) {
+            // Rate or quota limit: not a verdict on SerpAPI's health
+            circuitBreaker.release();
+            log.warn("SerpAPI rate limit or quota reached, skipping '{}' (start {})", query, start);
+            platformMetrics.recordSerpApiSkipped("rate_limited");
+            return NOT_CALLED;
         }
 
+        long callStart = System.nanoTime();
+        String outcome = "error";
         try {
             String url = UriComponentsBuilder.fromHttpUrl("https://serpapi.com/search.json")
                     .queryParam("engine", "google_patents")
@@ -110,120 +104,57 @@ public class ExternalPatentClient {
                     .queryParam("api_key", apiKey)
                     .toUriString();
 
-            ResponseEntity<Map<String, Object>> resp = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<>() {
-                    });
-
-            Map<String, Object> response = resp.getBody();
+            SerpApiResponseParser.Page response = restTemplate.execute(url, HttpMethod.GET, null,
+                    clientResponse -> responseParser.parse(clientResponse.getBody()));
             if (response == null) {
                 log.error("SerpAPI returned null response");
+                circuitBreaker.recordFailure();
                 return Collections.emptyList();
             }
 
-            if (response.containsKey("error")) {
-                log.error("SerpAPI ERROR: {}", response.get("error"));
+            if (response.error() != null) {
+                if (response.error().contains(NO_RESULTS_ERROR)) {
+                    // SerpAPI reports an empty result as an error; the API itself is fine
+                    circuitBreaker.recordSuccess();
+                    outcome = "no_results";
+                } else {
+                    log.error("SerpAPI ERROR: {}", response.error());
+                    circuitBreaker.recordFailure();
+                }
                 return Collections.emptyList();
             }
 
-            if (!response.containsKey("organic_results")) {
-                log.warn("SerpAPI response missing organic_results. Keys: {}", response.keySet());
+            circuitBreaker.recordSuccess();
+            outcome = "success";
+
+            if (response.results() == null) {
+                log.warn("SerpAPI response missing organic_results. Keys: {}", response.topLevelFields());
                 return Collections.emptyList();
             }
 
-            ObjectMapper mapper = new ObjectMapper();
-
-            List<Map<String, Object>> results = ((List<?>) response.get("organic_results")).stream()
-                    .filter(Map.class::isInstance)
-                    .map(o -> mapper.convertValue(o, new TypeReference<Map<String, Object>>() {
-                    }))
-                    .toList();
-
-            return results.stream()
-                    .map(this::mapToDto)
-                    .toList();
+            return response.results();
 
+        } catch (RestClientException e) {
+            if (Thread.currentThread().isInterrupted() || OutboundDeadline.hasPassed()) {
+                // Page was cancelled, or cut off at the caller's deadline; says nothing about SerpAPI's health
+                circuitBreaker.release();
+                outcome = "cancelled";
+            } else {
+                circuitBreaker.recordFailure();
+            }
+            log.error("Error calling SerpAPI", e);
+            return Collections.emptyList();
         } catch (Exception e) {
+            // E.g. a runtime failure in the parser; the permit must still be settled
+            circuitBreaker.recordFailure();
             log.error("Error calling SerpAPI", e);
             return Collections.emptyList();
+        } catch (Throwable t) {
+            // An Error (e.g. StackOverflowError in the parser) must not leak a half-open probe either
+            circuitBreaker.recordFailure();
+            throw t;
+        } finally {
+            platformMetrics.recordSerpApiCall(outcome, System.nanoTime() - callStart);
         }
     }
-
-    /*
-     * =======================
-     * DTO MAPPING (CORE LOGIC)
-     * =======================
-     */
-    private IPSearchResultDTO mapToDto(Map<String, Object> patent) {
-
-        IPSearchResultDTO dto = new IPSearchResultDTO();
-
-        String publicationNumber = patent.get("publication_number") != null
-                ? patent.get("publication_number").toString()
-                : null;
-
-        dto.setTitle((String) patent.getOrDefault("title", "Untitled Patent"));
-
-        dto.setApplicationNumber(
-                patent.get("application_number") != null
-                        ? patent.get("application_number").toString()
-                        : publicationNumber != null ? publicationNumber : null);
-
-        dto.setAssetType("PATENT");
-        dto.setCountry(extractCountryFromPublication(publicationNumber));
-        dto.setLegalStatus(deriveLegalStatus(patent));
-
-        dto.setOwnerName(
-                patent.get("assignee") != null
-                        ? patent.get("assignee").toString()
-                        : "UNKNOWN");
-
-        dto.setInventorName(
-                patent.get("inventor") != null
-                        ? patent.get("inventor").toString()
-                        : "UNKNOWN");
-
-        dto.setAbstractText(
-                patent.get("snippet") != null
-                        ? patent.get("snippet").toString()
-                        : "");
-
-        dto.setFilingDate(normalizeDate(patent.get("filing_date")));
-        // Try multiple field names for publication date (Google Patents API may use
-        // different keys)
-        Object pubDate = patent.get("publication_date") != null ? patent.get("publication_date")
-                : patent.get("publication_date_raw");
-        String normalizedPubDate = normalizeDate(pubDate);
-        dto.setPublicationDate(normalizedPubDate);
-        if (normalizedPubDate == null) {
-            log.debug("No publication date found for patent: {}. Available date fields: {}",
-                    dto.getApplicationNumber(), patent.keySet().stream()
-                            .filter(k -> k.toString().toLowerCase().contains("date")
-                                    || k.toString().toLowerCase().contains("publish"))
-                            .toList());
-        }
-        dto.setPriorityDate(normalizeDate(patent.get("priority_date")));
-        dto.setGrantDate(normalizeDate(patent.get("grant_date")));
-
-        dto.setPatentLink(
-                patent.get("patent_link") != null
-                        ? patent.get("patent_link").toString()
-                        : null);
-
-        dto.setPdfLink(
-                patent.get("pdf") != null
-                        ? patent.get("pdf").toString()
-                        : null);
-
-        dto.setThumbnail(
-                patent.get("thumbnail") != null
-                        ? patent.get("thumbnail").toString()
-                        : null);
-
-        dto.setReferenceSource("GOOGLE_PATENTS");
-
-        return dto;
-    }
 }
@@ -0,0 +1,192 @@
+package com.example.demo.ip.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker around SerpAPI calls.
+ *
+ * CLOSED: calls go through and their outcomes fill a sliding window of the
+ * last windowSize calls. Once at least minimumCalls are recorded and the
+ * failure rate reaches the threshold, the breaker OPENs.
+ * OPEN: calls are rejected without touching the network until openDuration
+ * has passed, then the breaker goes HALF_OPEN.
+ * HALF_OPEN: up to halfOpenProbes calls are let through; all succeeding
+ * closes the breaker again, any failure re-opens it.
+ */
+@Slf4j
+@Component
+public class ExternalSearchCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    // Ring buffer of the last windowSize outcomes (true = failed)
+    private final boolean[] window;
+    private int windowNext;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private long rejected;
+    private long timesOpened;
+
+    @Autowired
+    public ExternalSearchCircuitBreaker(
+            @Value("${ip.search.breaker.window-size:20}") int windowSize,
+            @Value("${ip.search.breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${ip.search.breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${ip.search.breaker.open-duration-ms:30000}") long openDurationMs,
+            @Value("${ip.search.breaker.half-open-probes:3}") int halfOpenProbes) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDurationMs, halfOpenProbes, System::currentTimeMillis);
+    }
+
+    ExternalSearchCircuitBreaker(int windowSize, int minimumCalls, float failureRateThreshold,
+            long openDurationMs, int halfOpenProbes, LongSupplier clock) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Asks for permission to make one call. Every permitted call must be
+     * followed by exactly one of recordSuccess, recordFailure or release.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openDurationMs) {
+                rejected++;
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                rejected++;
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        if (state == State.CLOSED && record(true)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * Returns a permit whose call ended without a verdict on SerpAPI's health
+     * (e.g. it was cancelled), so a half-open probe slot is not lost.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * True while calls are being rejected outright, so callers can skip
+     * SerpAPI without asking for a permit per page.
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && clock.getAsLong() - openedAt < openDurationMs;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("failureRate", windowCount == 0 ? 0f : failureRate());
+        stats.put("bufferedCalls", windowCount);
+        stats.put("failedCalls", windowFailures);
+        stats.put("rejectedCalls", rejected);
+        stats.put("timesOpened", timesOpened);
+        stats.put("retryInMs", state == State.OPEN
+                ? Math.max(0, openDurationMs - (clock.getAsLong() - openedAt))
+                : 0);
+        return stats;
+    }
+
+    /**
+     * Adds one outcome to the window.
+     *
+     * @return true when the failure rate now calls for opening the breaker
+     */
+    private boolean record(boolean failed) {
+        if (windowCount == windowSize) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % windowSize;
+
+        return windowCount >= minimumCalls && failureRate() >= failureRateThreshold;
+    }
+
+    private float failureRate() {
+        return windowFailures * 100f / windowCount;
+    }
+
+    private void transitionTo(State next) {
+        log.info("SerpAPI circuit breaker {} -> {}", state, next);
+        state = next;
+        probesStarted = 0;
+        probesSucceeded = 0;
+
+        if (next == State.OPEN) {
+            openedAt = clock.getAsLong();
+            timesOpened++;
+        }
+        if (next != State.HALF_OPEN) {
+            // A fresh window after every open/close, so old outcomes cannot re-trip it
+            windowNext = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+}
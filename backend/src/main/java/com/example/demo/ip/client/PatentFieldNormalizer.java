@@ -0,0 +1,107 @@
+package com.example.demo.ip.client;
+
+/**
+ * Character-level normalization of SerpAPI date and publication-number
+ * fields. Runs for several fields of every result, so it avoids regexes and,
+ * where the input can be returned as is, any allocation.
+ */
+public final class PatentFieldNormalizer {
+
+    public static final String UNKNOWN_COUNTRY = "UNKNOWN";
+
+    // "AA".."ZZ", so a country code never allocates
+    private static final String[] COUNTRY_CODES = new String[26 * 26];
+
+    static {
+        for (char first = 'A'; first <= 'Z'; first++) {
+            for (char second = 'A'; second <= 'Z'; second++) {
+                COUNTRY_CODES[(first - 'A') * 26 + (second - 'A')] = String.valueOf(new char[] {first, second});
+            }
+        }
+    }
+
+    private PatentFieldNormalizer() {
+    }
+
+    /**
+     * Normalizes yyyy-MM-dd, yyyy-MM and yyyy (surrounding whitespace allowed)
+     * to yyyy-MM-dd, padding missing parts with 01.
+     *
+     * @return the normalized date, or null for anything else
+     */
+    public static String normalizeDate(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        // Same bounds as String.trim(): strip chars <= ' '
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int length = end - start;
+        if (length < 4 || !digits(value, start, 4)) {
+            return null;
+        }
+
+        switch (length) {
+            case 10:
+                if (value.charAt(start + 4) == '-' && digits(value, start + 5, 2)
+                        && value.charAt(start + 7) == '-' && digits(value, start + 8, 2)) {
+                    return length == value.length() ? value : value.substring(start, end);
+                }
+                return null;
+            case 7:
+                if (value.charAt(start + 4) == '-' && digits(value, start + 5, 2)) {
+                    return new StringBuilder(10).append(value, start, end).append("-01").toString();
+                }
+                return null;
+            case 4:
+                return new StringBuilder(10).append(value, start, end).append("-01-01").toString();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Two-letter country prefix of a publication number (e.g. "US" for
+     * "US1234567B2"), case-insensitive.
+     *
+     * @return the upper-case code, or UNKNOWN when the first two chars are not letters
+     */
+    public static String countryFromPublication(String publicationNumber) {
+        if (publicationNumber == null || publicationNumber.length() < 2) {
+            return UNKNOWN_COUNTRY;
+        }
+
+        int first = letterIndex(publicationNumber.charAt(0));
+        int second = letterIndex(publicationNumber.charAt(1));
+
+        return first < 0 || second < 0 ? UNKNOWN_COUNTRY : COUNTRY_CODES[first * 26 + second];
+    }
+
+    private static boolean digits(String value, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index 0-25 of a char whose upper case is A-Z, else -1. Uses
+     * Character.toUpperCase, so it also accepts the two non-ASCII chars
+     * that upper-case into A-Z (dotless i and long s), like String.toUpperCase did.
+     */
+    private static int letterIndex(char c) {
+        char upper = c < 0x80 ? (c >= 'a' && c <= 'z' ? (char) (c - 32) : c) : Character.toUpperCase(c);
+        return upper >= 'A' && upper <= 'Z' ? upper - 'A' : -1;
+    }
+}
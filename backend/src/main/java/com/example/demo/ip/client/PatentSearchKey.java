@@ -0,0 +1,17 @@
+package com.example.demo.ip.client;
+
+/**
+ * Cache key for one SerpAPI result page.
+ * Kept structured (rather than a concatenated string) so a cache refresh can
+ * re-issue the exact same request.
+ */
+public record PatentSearchKey(String query, int limit, int start) {
+
+    /**
+     * Key that treats queries differing only in case or whitespace as equal.
+     */
+    public static PatentSearchKey normalized(String query, int limit, int start) {
+        String normalized = query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase(java.util.Locale.ROOT);
+        return new PatentSearchKey(normalized, limit, start);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Background refresh of stale "patent-search" pages (stale-while-revalidate).
+ *
+ * A stale page is served as is and handed here. At most maxConcurrent
+ * refreshes run at once (plus a short queue), each key is refreshed by one
+ * task at a time, and refreshes draw from a per-minute SerpAPI call budget.
+ * A refresh that is not admitted is simply dropped: the page stays stale and
+ * the next hit asks again, until the cache's hard expiry removes it.
+ */
+@Slf4j
+@Component
+public class SearchRefreshScheduler {
+
+    // Refreshes share one turn in the rate limiter's BACKGROUND lane
+    private static final String REFRESH_USER = "stale-refresh";
+
+    private final ObjectProvider<ExternalPatentClient> client;
+    private final ThreadPoolExecutor executor;
+    private final Set<PatentSearchKey> inFlight = ConcurrentHashMap.newKeySet();
+    private final CallBudget budget;
+
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong refreshed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skippedBusy = new AtomicLong();
+    private final AtomicLong skippedBudget = new AtomicLong();
+
+    @Autowired
+    public SearchRefreshScheduler(
+            ObjectProvider<ExternalPatentClient> client,
+            @Value("${ip.cache.patent-search.refresh.max-concurrent:2}") int maxConcurrent,
+            @Value("${ip.cache.patent-search.refresh.queue-capacity:16}") int queueCapacity,
+            @Value("${ip.cache.patent-search.refresh.calls-per-minute:30}") int callsPerMinute) {
+        this(client, maxConcurrent, queueCapacity, callsPerMinute, System::nanoTime);
+    }
+
+    SearchRefreshScheduler(ObjectProvider<ExternalPatentClient> client, int maxConcurrent, int queueCapacity,
+            int callsPerMinute, LongSupplier nanoClock) {
+        this.client = client;
+        this.budget = new CallBudget(callsPerMinute, nanoClock);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                maxConcurrent, maxConcurrent,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "patent-search-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedules a refresh of the page under key, unless one is already
+     * running, the pool is saturated or the minute's budget is spent.
+     *
+     * @return true if a refresh was scheduled
+     */
+    public boolean schedule(PatentSearchKey key, Cache target) {
+        if (!inFlight.add(key)) {
+            return false;
+        }
+        if (!budget.tryAcquire()) {
+            inFlight.remove(key);
+            skippedBudget.incrementAndGet();
+            return false;
+        }
+
+        try {
+            executor.execute(() -> refresh(key, target));
+            scheduled.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            budget.refund();
+            skippedBusy.incrementAndGet();
+            return false;
+        }
+    }
+
+    private void refresh(PatentSearchKey key, Cache target) {
+        try {
+            List<IPSearchResultDTO> fresh = SerpApiRateLimiter.inBackground(REFRESH_USER,
+                    () -> client.getObject().fetchPatents(key.query(), key.limit(), key.start()));
+            if (ExternalPatentClient.wasSkipped(fresh)) {
+                // No request went out, so the budget token was not used
+                budget.refund();
+            }
+            if (fresh == null || fresh.isEmpty()) {
+                // Error fallback: keep serving the stale page
+                failed.incrementAndGet();
+                log.debug("Refresh of {} returned nothing, keeping cached page", key);
+                return;
+            }
+            target.put(key, fresh);
+            refreshed.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Refresh of {} failed", key, e);
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("scheduled", scheduled.get());
+        stats.put("refreshed", refreshed.get());
+        stats.put("failed", failed.get());
+        stats.put("skippedBusy", skippedBusy.get());
+        stats.put("skippedBudget", skippedBudget.get());
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("budgetPerMinute", budget.getCallsPerMinute());
+        stats.put("budgetRemaining", budget.getRemaining());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight de-duplication of outbound SerpAPI searches.
+ *
+ * The first caller for a key performs the request; callers arriving with the
+ * same key while it is in flight wait on the same future instead of issuing
+ * their own call.
+ */
+@Component
+public class SearchRequestCoalescer {
+
+    private final Map<PatentSearchKey, CompletableFuture<List<IPSearchResultDTO>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public List<IPSearchResultDTO> execute(PatentSearchKey key, Supplier<List<IPSearchResultDTO>> call) {
+        CompletableFuture<List<IPSearchResultDTO>> mine = new CompletableFuture<>();
+        CompletableFuture<List<IPSearchResultDTO>> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.join();
+        }
+
+        executed.incrementAndGet();
+        try {
+            List<IPSearchResultDTO> result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Errors too, or the followers waiting on the future would hang forever
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("executed", executed.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+}
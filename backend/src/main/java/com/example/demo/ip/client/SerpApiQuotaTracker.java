@@ -0,0 +1,234 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.entity.SerpApiQuotaUsage;
+import com.example.demo.ip.repository.SerpApiQuotaUsageRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts SerpAPI calls per UTC day and month against the plan's quota.
+ *
+ * Calls are reserved in memory before they are made. Each flush adds the
+ * new calls to serpapi_quota_usage and reads the totals back, so every
+ * instance counts what all instances have stored (plus its own unflushed
+ * calls), and a restart continues from the stored usage. Background calls stop at
+ * backgroundShare of either limit, leaving the rest for interactive
+ * searches. A limit of 0 means unlimited.
+ */
+@Slf4j
+@Component
+public class SerpApiQuotaTracker {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final SerpApiQuotaUsageRepository repository;
+    private final TransactionTemplate writeTransaction;
+    private final Clock clock;
+    private final long dailyLimit;
+    private final long monthlyLimit;
+    private final double backgroundShare;
+
+    private String dayKey;
+    private String monthKey;
+    private long dayCalls;
+    private long monthCalls;
+    // Calls not yet added to the table, by period key
+    private final Map<String, Long> pending = new HashMap<>();
+    private final Map<SerpApiRateLimiter.Lane, Long> rejected = new EnumMap<>(SerpApiRateLimiter.Lane.class);
+    // Serializes flush and refresh, so a refresh never sees a delta both stored and still pending;
+    // the table is never touched while holding the monitor that tryReserve waits on
+    private final Object flushLock = new Object();
+
+    @Autowired
+    public SerpApiQuotaTracker(
+            SerpApiQuotaUsageRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${ip.serpapi.quota.daily-calls:0}") long dailyLimit,
+            @Value("${ip.serpapi.quota.monthly-calls:5000}") long monthlyLimit,
+            @Value("${ip.serpapi.quota.background-share:0.8}") double backgroundShare) {
+        this(repository, transactionManager, dailyLimit, monthlyLimit, backgroundShare, Clock.systemUTC());
+    }
+
+    SerpApiQuotaTracker(SerpApiQuotaUsageRepository repository, PlatformTransactionManager transactionManager,
+            long dailyLimit, long monthlyLimit, double backgroundShare, Clock clock) {
+        this.repository = repository;
+        this.clock = clock;
+        this.dailyLimit = dailyLimit;
+        this.monthlyLimit = monthlyLimit;
+        this.backgroundShare = backgroundShare;
+
+        // Own transaction: may run inside a search's read transaction
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        refresh();
+    }
+
+    /**
+     * Reserves one call, unless it would exceed the daily or monthly quota
+     * (or, for background calls, their share of it).
+     */
+    public synchronized boolean tryReserve(SerpApiRateLimiter.Lane lane) {
+        rollOver();
+        double share = lane == SerpApiRateLimiter.Lane.BACKGROUND ? backgroundShare : 1.0;
+        if (exhausted(dayCalls, dailyLimit, share) || exhausted(monthCalls, monthlyLimit, share)) {
+            rejected.merge(lane, 1L, Long::sum);
+            return false;
+        }
+        add(1);
+        return true;
+    }
+
+    /**
+     * Returns a reservation for a call that was never made.
+     */
+    public synchronized void unreserve() {
+        add(-1);
+    }
+
+    @Scheduled(initialDelayString = "${ip.serpapi.quota.flush-interval-ms:10000}",
+            fixedDelayString = "${ip.serpapi.quota.flush-interval-ms:10000}")
+    public void flush() {
+        synchronized (flushLock) {
+            writePending();
+            refresh();
+        }
+    }
+
+    private void writePending() {
+        Map<String, Long> deltas;
+        synchronized (this) {
+            deltas = new HashMap<>(pending);
+            pending.clear();
+        }
+
+        deltas.forEach((period, delta) -> {
+            if (delta == 0) {
+                return;
+            }
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    LocalDateTime now = LocalDateTime.now(clock);
+                    if (repository.addCalls(period, delta, now) == 0) {
+                        repository.save(new SerpApiQuotaUsage(period, delta, now));
+                    }
+                });
+            } catch (DataAccessException | TransactionException e) {
+                // Keep the delta for the next flush
+                synchronized (this) {
+                    pending.merge(period, delta, Long::sum);
+                }
+                log.warn("Could not store SerpAPI quota usage for {}: {}", period, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reloads the current day's and month's counts as stored total plus this
+     * instance's unflushed calls, picking up calls made by other instances.
+     */
+    void refresh() {
+        synchronized (flushLock) {
+            String day;
+            String month;
+            synchronized (this) {
+                rollOver();
+                day = dayKey;
+                month = monthKey;
+            }
+
+            Long storedDay = storedCalls(day);
+            Long storedMonth = storedCalls(month);
+
+            synchronized (this) {
+                // The period may have rolled over during the read
+                if (storedDay != null && day.equals(dayKey)) {
+                    dayCalls = storedDay + pending.getOrDefault(day, 0L);
+                }
+                if (storedMonth != null && month.equals(monthKey)) {
+                    monthCalls = storedMonth + pending.getOrDefault(month, 0L);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        rollOver();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("day", dayKey);
+        stats.put("dayCalls", dayCalls);
+        stats.put("dailyLimit", dailyLimit);
+        stats.put("month", monthKey);
+        stats.put("monthCalls", monthCalls);
+        stats.put("monthlyLimit", monthlyLimit);
+        stats.put("monthlyUsedPercent", monthlyLimit == 0 ? 0.0 : 100.0 * monthCalls / monthlyLimit);
+        stats.put("backgroundShare", backgroundShare);
+        stats.put("rejectedInteractive", rejected.getOrDefault(SerpApiRateLimiter.Lane.INTERACTIVE, 0L));
+        stats.put("rejectedBackground", rejected.getOrDefault(SerpApiRateLimiter.Lane.BACKGROUND, 0L));
+        return stats;
+    }
+
+    private void add(long calls) {
+        dayCalls += calls;
+        monthCalls += calls;
+        pending.merge(dayKey, calls, Long::sum);
+        pending.merge(monthKey, calls, Long::sum);
+    }
+
+    /**
+     * Starts a new day or month when the date has moved on, from this
+     * instance's unflushed calls only; the next flush adds what the table
+     * holds for it. Must not touch the table: callers hold the monitor.
+     */
+    private void rollOver() {
+        LocalDate today = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+        String day = today.toString();
+        if (!day.equals(dayKey)) {
+            dayKey = day;
+            dayCalls = pending.getOrDefault(day, 0L);
+        }
+        String month = today.format(MONTH);
+        if (!month.equals(monthKey)) {
+            monthKey = month;
+            monthCalls = pending.getOrDefault(month, 0L);
+        }
+    }
+
+    // Stored total for a period, or null when it cannot be read
+    private Long storedCalls(String period) {
+        try {
+            return repository.findById(period).map(SerpApiQuotaUsage::getCalls).orElse(0L);
+        } catch (DataAccessException e) {
+            log.warn("Could not read SerpAPI quota usage for {}: {}", period, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean exhausted(long used, long limit, double share) {
+        return limit > 0 && used >= limit * share;
+    }
+}
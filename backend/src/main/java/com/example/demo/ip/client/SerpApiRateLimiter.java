@@ -0,0 +1,321 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.throttle.SearchThrottleFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Outbound rate limit for SerpAPI: a token bucket of permitsPerSecond with
+ * room for a burst, in front of the {@link SerpApiQuotaTracker}.
+ *
+ * Callers without a free token wait in line, up to their lane's max wait:
+ * INTERACTIVE searches are always served before BACKGROUND work (prefetch,
+ * refresh), and within a lane users take turns, so one user's burst cannot
+ * starve everyone else. The lane and user come from the calling thread: a
+ * web request is INTERACTIVE for its user (or client address); background work
+ * runs its calls through {@link #inBackground} / {@link #runInBackground}, and
+ * request work on other threads through {@link #onBehalfOf}.
+ */
+@Component
+public class SerpApiRateLimiter {
+
+    public enum Lane { INTERACTIVE, BACKGROUND }
+
+    private record Caller(Lane lane, String user) {
+    }
+
+    private static final ThreadLocal<Caller> CALLER = new ThreadLocal<>();
+
+    private final SerpApiQuotaTracker quota;
+    private final LongSupplier nanoClock;
+    private final double permitsPerSecond;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Map<Lane, Long> maxWaitNanos = new EnumMap<>(Lane.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition tokensChanged = lock.newCondition();
+    private final Map<Lane, FairQueue> queues = new EnumMap<>(Lane.class);
+    private double tokens;
+    private long refilledAt;
+
+    private final Map<Lane, Long> granted = new EnumMap<>(Lane.class);
+    private final Map<Lane, Long> timedOut = new EnumMap<>(Lane.class);
+    private final Map<Lane, Long> overQuota = new EnumMap<>(Lane.class);
+
+    @Autowired
+    public SerpApiRateLimiter(
+            SerpApiQuotaTracker quota,
+            @Value("${ip.serpapi.rate.permits-per-second:5}") double permitsPerSecond,
+            @Value("${ip.serpapi.rate.burst:10}") int burst,
+            @Value("${ip.serpapi.rate.interactive-max-wait-ms:2000}") long interactiveMaxWaitMs,
+            @Value("${ip.serpapi.rate.background-max-wait-ms:500}") long backgroundMaxWaitMs) {
+        this(quota, permitsPerSecond, burst, interactiveMaxWaitMs, backgroundMaxWaitMs, System::nanoTime);
+    }
+
+    SerpApiRateLimiter(SerpApiQuotaTracker quota, double permitsPerSecond, int burst,
+            long interactiveMaxWaitMs, long backgroundMaxWaitMs, LongSupplier nanoClock) {
+        this.quota = quota;
+        this.nanoClock = nanoClock;
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+        this.maxWaitNanos.put(Lane.INTERACTIVE, TimeUnit.MILLISECONDS.toNanos(interactiveMaxWaitMs));
+        this.maxWaitNanos.put(Lane.BACKGROUND, TimeUnit.MILLISECONDS.toNanos(backgroundMaxWaitMs));
+        for (Lane lane : Lane.values()) {
+            queues.put(lane, new FairQueue());
+        }
+    }
+
+    /**
+     * Runs call as BACKGROUND work on behalf of user.
+     */
+    public static <T> T inBackground(String user, Supplier<T> call) {
+        return runAs(new Caller(Lane.BACKGROUND, user), call);
+    }
+
+    /**
+     * Runs call as INTERACTIVE work of user, for request work handed to
+     * another thread.
+     */
+    public static <T> T onBehalfOf(String user, Supplier<T> call) {
+        return runAs(new Caller(Lane.INTERACTIVE, user), call);
+    }
+
+    public static void runInBackground(String user, Runnable work) {
+        inBackground(user, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static <T> T runAs(Caller caller, Supplier<T> call) {
+        Caller previous = CALLER.get();
+        CALLER.set(caller);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CALLER.set(previous);
+            } else {
+                CALLER.remove();
+            }
+        }
+    }
+
+    /**
+     * The user on whose behalf the current thread calls SerpAPI.
+     */
+    public static String currentUser() {
+        Caller caller = CALLER.get();
+        if (caller != null) {
+            return caller.user();
+        }
+        return SearchThrottleFilter.principalKey(
+                RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                        ? attributes.getRequest()
+                        : null);
+    }
+
+    /**
+     * Takes a permit for one SerpAPI call, waiting in line if needed.
+     *
+     * @return false when the quota is used up or no token came within the
+     *         lane's max wait; the call must then not be made
+     */
+    public boolean acquire() {
+        Caller caller = CALLER.get();
+        if (caller == null) {
+            caller = new Caller(Lane.INTERACTIVE, currentUser());
+        }
+
+        if (!quota.tryReserve(caller.lane())) {
+            count(overQuota, caller.lane());
+            return false;
+        }
+
+        boolean acquired;
+        try {
+            acquired = awaitToken(caller);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            quota.unreserve();
+        }
+        return acquired;
+    }
+
+    private boolean awaitToken(Caller caller) throws InterruptedException {
+        Waiter waiter = new Waiter(caller.user());
+        FairQueue queue = queues.get(caller.lane());
+
+        lock.lock();
+        try {
+            long deadline = nanoClock.getAsLong() + maxWaitNanos.get(caller.lane());
+            queue.add(waiter);
+            while (true) {
+                dispatch();
+                if (waiter.granted) {
+                    count(granted, caller.lane());
+                    return true;
+                }
+                long remaining = deadline - nanoClock.getAsLong();
+                if (remaining <= 0) {
+                    queue.remove(waiter);
+                    count(timedOut, caller.lane());
+                    return false;
+                }
+                tokensChanged.awaitNanos(Math.min(remaining, nanosUntilNextToken()));
+            }
+        } catch (InterruptedException e) {
+            if (waiter.granted) {
+                // Handed a token while being interrupted; pass it on
+                tokens = Math.min(capacity, tokens + 1);
+                dispatch();
+            } else {
+                queue.remove(waiter);
+            }
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands the available tokens to waiters: INTERACTIVE first, users in turn.
+     */
+    private void dispatch() {
+        refill();
+        boolean handedOut = false;
+        while (tokens >= 1) {
+            Waiter next = queues.get(Lane.INTERACTIVE).poll();
+            if (next == null) {
+                next = queues.get(Lane.BACKGROUND).poll();
+            }
+            if (next == null) {
+                break;
+            }
+            next.granted = true;
+            tokens -= 1;
+            handedOut = true;
+        }
+        if (handedOut) {
+            tokensChanged.signalAll();
+        }
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private long nanosUntilNextToken() {
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(1), (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    private void count(Map<Lane, Long> counter, Lane lane) {
+        lock.lock();
+        try {
+            counter.merge(lane, 1L, Long::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            refill();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("permitsPerSecond", permitsPerSecond);
+            stats.put("burst", (long) capacity);
+            stats.put("availableTokens", Math.floor(tokens));
+            for (Lane lane : Lane.values()) {
+                Map<String, Object> laneStats = new LinkedHashMap<>();
+                laneStats.put("granted", granted.getOrDefault(lane, 0L));
+                laneStats.put("timedOut", timedOut.getOrDefault(lane, 0L));
+                laneStats.put("overQuota", overQuota.getOrDefault(lane, 0L));
+                laneStats.put("waiting", queues.get(lane).size);
+                laneStats.put("waitingUsers", queues.get(lane).byUser.size());
+                laneStats.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get(lane)));
+                stats.put(lane.name().toLowerCase(), laneStats);
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Waiter {
+        private final String user;
+        private boolean granted;
+
+        private Waiter(String user) {
+            this.user = user;
+        }
+    }
+
+    /**
+     * Waiters of one lane, served round-robin across users and FIFO per user.
+     * Guarded by the limiter's lock.
+     */
+    private static final class FairQueue {
+        private final Map<String, ArrayDeque<Waiter>> byUser = new HashMap<>();
+        private final ArrayDeque<String> turns = new ArrayDeque<>();
+        private int size;
+
+        void add(Waiter waiter) {
+            byUser.computeIfAbsent(waiter.user, user -> {
+                turns.addLast(user);
+                return new ArrayDeque<>();
+            }).addLast(waiter);
+            size++;
+        }
+
+        Waiter poll() {
+            String user = turns.pollFirst();
+            if (user == null) {
+                return null;
+            }
+            ArrayDeque<Waiter> waiters = byUser.get(user);
+            Waiter waiter = waiters.pollFirst();
+            size--;
+            if (waiters.isEmpty()) {
+                byUser.remove(user);
+            } else {
+                turns.addLast(user);
+            }
+            return waiter;
+        }
+
+        void remove(Waiter waiter) {
+            ArrayDeque<Waiter> waiters = byUser.get(waiter.user);
+            if (waiters != null && waiters.remove(waiter)) {
+                size--;
+                if (waiters.isEmpty()) {
+                    byUser.remove(waiter.user);
+                    turns.remove(waiter.user);
+                }
+            }
+        }
+    }
+}
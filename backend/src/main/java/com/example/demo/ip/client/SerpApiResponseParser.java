@@ -0,0 +1,192 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.demo.ip.client.PatentFieldNormalizer.countryFromPublication;
+import static com.example.demo.ip.client.PatentFieldNormalizer.normalizeDate;
+
+/**
+ * Streams a SerpAPI google_patents response straight into result DTOs.
+ *
+ * Only "error" and "organic_results" are read; everything else (metadata,
+ * figures, pagination, ...) is skipped token by token without building a tree.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SerpApiResponseParser {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param error           SerpAPI's "error" message, if any
+     * @param results         mapped organic results, or null when the field is missing
+     * @param topLevelFields  names of the top-level fields, for diagnostics
+     */
+    public record Page(String error, List<IPSearchResultDTO> results, List<String> topLevelFields) {
+    }
+
+    /**
+     * @return the parsed page, or null for an empty (or non-object) body
+     */
+    public Page parse(InputStream body) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            String error = null;
+            List<IPSearchResultDTO> results = null;
+            List<String> fields = new ArrayList<>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                fields.add(field);
+                JsonToken token = parser.nextToken();
+
+                switch (field) {
+                    case "error" -> error = text(parser, token);
+                    case "organic_results" -> results = readResults(parser, token);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new Page(error, results, fields);
+        }
+    }
+
+    private List<IPSearchResultDTO> readResults(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+
+        List<IPSearchResultDTO> results = new ArrayList<>();
+        for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+            if (item == JsonToken.START_OBJECT) {
+                results.add(readResult(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return results;
+    }
+
+    /*
+     * =======================
+     * DTO MAPPING (CORE LOGIC)
+     * =======================
+     */
+    private IPSearchResultDTO readResult(JsonParser parser) throws IOException {
+
+        IPSearchResultDTO dto = new IPSearchResultDTO();
+        dto.setTitle("Untitled Patent");
+        dto.setOwnerName("UNKNOWN");
+        dto.setInventorName("UNKNOWN");
+        dto.setAbstractText("");
+
+        String publicationNumber = null;
+        String applicationNumber = null;
+        String filingDate = null;
+        String publicationDate = null;
+        String publicationDateRaw = null;
+        String grantDate = null;
+        List<String> fields = log.isDebugEnabled() ? new ArrayList<>() : null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (fields != null) {
+                fields.add(field);
+            }
+
+            switch (field) {
+                case "title" -> dto.setTitle(text(parser, token));
+                case "publication_number" -> publicationNumber = text(parser, token);
+                case "application_number" -> applicationNumber = text(parser, token);
+                case "assignee" -> dto.setOwnerName(orDefault(text(parser, token), "UNKNOWN"));
+                case "inventor" -> dto.setInventorName(orDefault(text(parser, token), "UNKNOWN"));
+                case "snippet" -> dto.setAbstractText(orDefault(text(parser, token), ""));
+                case "filing_date" -> filingDate = text(parser, token);
+                case "publication_date" -> publicationDate = text(parser, token);
+                case "publication_date_raw" -> publicationDateRaw = text(parser, token);
+                case "priority_date" -> dto.setPriorityDate(normalizeDate(text(parser, token)));
+                case "grant_date" -> grantDate = text(parser, token);
+                case "patent_link" -> dto.setPatentLink(text(parser, token));
+                case "pdf" -> dto.setPdfLink(text(parser, token));
+                case "thumbnail" -> dto.setThumbnail(text(parser, token));
+                default -> parser.skipChildren();
+            }
+        }
+
+        dto.setApplicationNumber(applicationNumber != null ? applicationNumber : publicationNumber);
+        dto.setAssetType("PATENT");
+        dto.setCountry(countryFromPublication(publicationNumber));
+        dto.setLegalStatus(deriveLegalStatus(grantDate, publicationDate, filingDate));
+
+        dto.setFilingDate(normalizeDate(filingDate));
+        // Google Patents may only give the raw publication date
+        dto.setPublicationDate(normalizeDate(publicationDate != null ? publicationDate : publicationDateRaw));
+        if (dto.getPublicationDate() == null && fields != null) {
+            log.debug("No publication date found for patent: {}. Available date fields: {}",
+                    dto.getApplicationNumber(), fields.stream()
+                            .filter(k -> k.toLowerCase().contains("date") || k.toLowerCase().contains("publish"))
+                            .toList());
+        }
+        dto.setGrantDate(normalizeDate(grantDate));
+
+        dto.setReferenceSource("GOOGLE_PATENTS");
+
+        return dto;
+    }
+
+    /**
+     * Scalar values as text; arrays and objects (which Google Patents uses for
+     * some multi-valued fields) in their Map/List string form.
+     */
+    private String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        return String.valueOf(objectMapper.readValue(parser, Object.class));
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    /*
+     * =======================
+     * LEGAL STATUS (TRANSPARENT)
+     * =======================
+     */
+    private String deriveLegalStatus(String grantDate, String publicationDate, String filingDate) {
+
+        if (grantDate != null) {
+            return "GRANTED";
+        }
+
+        if (publicationDate != null) {
+            return "PUBLISHED";
+        }
+
+        if (filingDate != null) {
+            return "FILED";
+        }
+
+        return "UNKNOWN";
+    }
+}
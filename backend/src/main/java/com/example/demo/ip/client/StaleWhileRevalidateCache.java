@@ -0,0 +1,41 @@
+package com.example.demo.ip.client;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+
+/**
+ * "patent-search" cache that serves pages older than staleAfter as they
+ * are, and asks the {@link SearchRefreshScheduler} to refresh them in the
+ * background. Caffeine's expireAfterWrite stays the hard limit on staleness.
+ */
+public class StaleWhileRevalidateCache extends CaffeineCache {
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache;
+    private final Duration staleAfter;
+    private final SearchRefreshScheduler refreshScheduler;
+
+    public StaleWhileRevalidateCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache,
+            Duration staleAfter, SearchRefreshScheduler refreshScheduler) {
+        super(name, nativeCache, false);
+        this.nativeCache = nativeCache;
+        this.staleAfter = staleAfter;
+        this.refreshScheduler = refreshScheduler;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = super.lookup(key);
+        if (value != null && key instanceof PatentSearchKey searchKey && isStale(key)) {
+            refreshScheduler.schedule(searchKey, this);
+        }
+        return value;
+    }
+
+    private boolean isStale(Object key) {
+        return nativeCache.policy().expireAfterWrite()
+                .flatMap(expiry -> expiry.ageOf(key))
+                .map(age -> age.compareTo(staleAfter) >= 0)
+                .orElse(false);
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.demo.ip.client;
 
+import com.example.demo.config.RestTemplateConfig;
 import com.example.demo.ip.dto.IPSearchResultDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -19,6 +21,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TrademarkClient {
 
+    @Qualifier(RestTemplateConfig.USPTO)
     private final RestTemplate restTemplate;
 
     @Value("${uspto.api.base-url:https://developer.uspto.gov/ibd-api/v1}")
@@ -1,13 +1,21 @@
 package com.example.demo.ip.controller;
 
+import com.example.demo.ip.dto.FederatedSearchResponse;
+import com.example.demo.ip.dto.IPSearchPage;
 import com.example.demo.ip.dto.IPSearchRequest;
 import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.ip.dto.SearchBatch;
+import com.example.demo.ip.service.FederatedSearchService;
 import com.example.demo.ip.service.IPSearchService;
+import com.example.demo.ip.service.SearchStreamService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -15,18 +23,69 @@ import java.util.List;
 @RequiredArgsConstructor
 public class IPSearchController {
 
+    // Keyset cursor for the next LOCAL page; send it back as "cursor" in the request
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final IPSearchService ipSearchService;
+    private final FederatedSearchService federatedSearchService;
+    private final SearchStreamService searchStreamService;
 
     @PostMapping("/search")
     public ResponseEntity<List<IPSearchResultDTO>> search(
            @Valid @RequestBody IPSearchRequest request) {
-        List<IPSearchResultDTO> results = ipSearchService.search(request);
+        IPSearchPage page = ipSearchService.searchPage(request);
+        List<IPSearchResultDTO> results = page.results();
         System.out.println("API returning " + results.size() + " results");
-        return ResponseEntity.ok(results);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(results);
+    }
+
+    // Patents, trademarks and local results in one list, with each source's status and latency
+    @PostMapping("/search/federated")
+    public ResponseEntity<FederatedSearchResponse> searchFederated(
+           @Valid @RequestBody IPSearchRequest request) {
+        return ResponseEntity.ok(federatedSearchService.search(request.getQuery()));
+    }
+
+    // Server-Sent Events: "batch" events as each source or page arrives (local hits first), then "done"
+    @GetMapping(value = "/search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter searchStream(@RequestParam String query) {
+        SseEmitter emitter = new SseEmitter(searchStreamService.getTimeout().toMillis());
+        SearchStreamService.Stream stream = searchStreamService.start(query, new SseSink(emitter));
+
+        // Client gone or stream over: stop any fetch still running
+        emitter.onCompletion(stream::cancel);
+        emitter.onTimeout(stream::cancel);
+        emitter.onError(error -> stream.cancel());
+        return emitter;
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<IPSearchResultDTO> getIPDetails(@PathVariable Long id) {
         return ResponseEntity.ok(ipSearchService.getIPDetails(id));
     }
+
+    // For results that have no id yet (fresh external results are stored in the background)
+    @GetMapping("/by-number")
+    public ResponseEntity<IPSearchResultDTO> getIPDetailsByApplicationNumber(@RequestParam String applicationNumber) {
+        return ResponseEntity.ok(ipSearchService.getIPDetailsByApplicationNumber(applicationNumber));
+    }
+
+    private record SseSink(SseEmitter emitter) implements SearchStreamService.Sink {
+
+        @Override
+        public void batch(SearchBatch batch) throws IOException {
+            emitter.send(SseEmitter.event().name("batch").data(batch, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void done(List<FederatedSearchResponse.SourceReport> sources) throws IOException {
+            emitter.send(SseEmitter.event().name("done").data(sources, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.demo.ip.dto;
+
+import java.util.List;
+
+/**
+ * Merged results of a federated search, with how each source fared.
+ */
+public record FederatedSearchResponse(List<IPSearchResultDTO> results, List<SourceReport> sources) {
+
+    public enum Source { PATENTS, TRADEMARKS, LOCAL }
+
+    /**
+     * OK: answered in time (possibly with no results); TIMEOUT: missed its
+     * deadline; FAILED: threw; REJECTED: no worker free to run it.
+     */
+    public enum Status { OK, TIMEOUT, FAILED, REJECTED }
+
+    public record SourceReport(Source source, Status status, long latencyMs, int resultCount) {
+    }
+}
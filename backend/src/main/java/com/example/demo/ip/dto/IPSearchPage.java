@@ -0,0 +1,13 @@
+package com.example.demo.ip.dto;
+
+import java.util.List;
+
+/**
+ * One page of search results; nextCursor is null on the last page.
+ */
+public record IPSearchPage(List<IPSearchResultDTO> results, String nextCursor) {
+
+    public static IPSearchPage of(List<IPSearchResultDTO> results) {
+        return new IPSearchPage(results, null);
+    }
+}
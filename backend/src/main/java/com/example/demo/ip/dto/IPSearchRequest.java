@@ -7,5 +7,7 @@ public class IPSearchRequest {
     private String query; // search keyword
     private String type; // PATENT or TRADEMARK
     private String source;  // LOCAL or EXTERNAL
+    private Integer page; // zero-based page of 20 (EXTERNAL) or 60 (LOCAL); LOCAL uses it when no cursor is given
+    private String cursor; // LOCAL: X-Next-Cursor of the previous page
 
 }
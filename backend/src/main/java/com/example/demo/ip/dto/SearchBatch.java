@@ -0,0 +1,10 @@
+package com.example.demo.ip.dto;
+
+import java.util.List;
+
+/**
+ * One event of a streamed search: a source's results, or one page of them
+ * for PATENTS, without the results an earlier batch already had.
+ */
+public record SearchBatch(FederatedSearchResponse.Source source, int page, List<IPSearchResultDTO> results) {
+}
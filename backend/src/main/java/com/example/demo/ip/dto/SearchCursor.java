@@ -0,0 +1,41 @@
+package com.example.demo.ip.dto;
+
+import com.example.demo.ip.exception.InvalidSearchPageException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a relevance-ranked result list: the (rank, id) of the
+ * last hit on the previous page. Results are ordered by rank, then id, both
+ * descending, so the next page starts strictly after this pair.
+ *
+ * Travels to the client as an opaque URL-safe token.
+ */
+public record SearchCursor(float rank, long id) {
+
+    public String encode() {
+        String raw = Float.toString(rank) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded cursor, or null for a missing/blank token
+     */
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(':');
+            float rank = Float.parseFloat(raw.substring(0, sep));
+            if (!Float.isFinite(rank)) {
+                throw new NumberFormatException("rank is not finite");
+            }
+            return new SearchCursor(rank, Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidSearchPageException("Invalid search cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.ip.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One cached external search: the application numbers of its results in
+ * rank order, keyed by the SHA-256 of the normalized query and limit.
+ */
+@Entity
+@Table(name = "search_result_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchResultCacheEntry {
+
+    @Id
+    @Column(name = "query_hash", length = 64)
+    private String queryHash;
+
+    @Column(name = "query_text", length = 500, nullable = false)
+    private String queryText;
+
+    @Column(name = "result_limit", nullable = false)
+    private int resultLimit;
+
+    // Newline-separated, in result order
+    @Column(name = "application_numbers", columnDefinition = "TEXT", nullable = false)
+    private String applicationNumbers;
+
+    @Column(name = "result_count", nullable = false)
+    private int resultCount;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+}
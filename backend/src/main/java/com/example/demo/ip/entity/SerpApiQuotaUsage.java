@@ -0,0 +1,30 @@
+package com.example.demo.ip.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of SerpAPI calls made in one quota period: a UTC day
+ * ("yyyy-MM-dd") or month ("yyyy-MM").
+ */
+@Entity
+@Table(name = "serpapi_quota_usage")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SerpApiQuotaUsage {
+
+    @Id
+    @Column(name = "period_key", length = 10)
+    private String periodKey;
+
+    @Column(name = "calls", nullable = false)
+    private long calls;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.ip.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSearchPageException extends RuntimeException {
+    public InvalidSearchPageException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchPageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,635 @@
+package com.example.demo.ip.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index with BM25 ranking.
+ *
+ * Each term maps to a posting list of primitive arrays sorted by document id
+ * (id, term frequency, document length). Queries walk the posting lists in id
+ * order (document-at-a-time), so scoring needs no per-document map, keep the
+ * best hits in a small primitive heap, and use MaxScore with per-block score
+ * bounds to skip postings that cannot reach the current top-k.
+ *
+ * Documents can be added, replaced and removed at any time; a single
+ * read/write lock keeps searches consistent with updates.
+ */
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // Bounds are inflated slightly so float rounding can never prune a real hit
+    private static final float BOUND_SLACK = 1.0001f;
+    private static final int BLOCK_SIZE = 64;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is",
+            "it", "of", "on", "or", "that", "the", "to", "with");
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    // Forward index, needed to remove or replace a document
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private long totalLength;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a document, replacing any previous version with the same id.
+     */
+    public void index(long docId, String... fields) {
+        Map<String, Integer> termFrequencies = new LinkedHashMap<>();
+        int length = 0;
+        for (String field : fields) {
+            for (String term : tokenize(field)) {
+                termFrequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(docId);
+            if (termFrequencies.isEmpty()) {
+                return;
+            }
+
+            totalLength += length;
+            float avgLength = averageLength(totalLength, documents.size() + 1);
+
+            PostingList[] lists = new PostingList[termFrequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                PostingList list = postings.computeIfAbsent(entry.getKey(), PostingList::new);
+                list.insert(docId, entry.getValue(), length, avgLength);
+                lists[i++] = list;
+            }
+            documents.put(docId, new IndexedDocument(lists, length));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long docId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(long docId) {
+        IndexedDocument doc = documents.remove(docId);
+        if (doc == null) {
+            return;
+        }
+        totalLength -= doc.length();
+        float avgLength = averageLength(totalLength, documents.size());
+        for (PostingList list : doc.postings()) {
+            if (list.remove(docId, avgLength) && list.size == 0) {
+                postings.remove(list.term);
+            }
+        }
+    }
+
+    private static float averageLength(long totalLength, int docCount) {
+        return docCount == 0 ? 1 : Math.max(1, (float) totalLength / docCount);
+    }
+
+    public record Hit(long id, float score) {
+    }
+
+    /**
+     * Returns the ids of the best matching documents, best first.
+     */
+    public List<Long> search(String query, int limit) {
+        return searchAfter(query, limit, Float.POSITIVE_INFINITY, Long.MAX_VALUE).stream().map(Hit::id).toList();
+    }
+
+    /**
+     * Best hits ranked strictly after (afterScore, afterId) in (score, id) descending
+     * order; used to page through results with a keyset cursor.
+     */
+    public List<Hit> searchAfter(String query, int limit, float afterScore, long afterId) {
+        return search(query, limit, true, afterScore, afterId);
+    }
+
+    /**
+     * Same ranking without pruning; every posting is scored. Reference for tests and benchmarks.
+     */
+    List<Long> searchExhaustive(String query, int limit) {
+        return search(query, limit, false, Float.POSITIVE_INFINITY, Long.MAX_VALUE).stream().map(Hit::id).toList();
+    }
+
+    private List<Hit> search(String query, int limit, boolean prune, float afterScore, long afterId) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            float avgLength = averageLength(totalLength, docCount);
+
+            List<TermCursor> cursors = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list != null) {
+                    cursors.add(new TermCursor(list, idf(docCount, list.size), avgLength));
+                }
+            }
+            if (cursors.isEmpty()) {
+                return List.of();
+            }
+
+            TermCursor[] array = cursors.toArray(new TermCursor[0]);
+            TopHits top = new TopHits(limit, afterScore, afterId);
+            if (prune) {
+                scoreMaxScore(array, top);
+            } else {
+                scoreDocumentAtATime(array, top);
+            }
+            return top.drainBestFirst();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * MaxScore: terms are ordered by their score upper bound, and once the top-k
+     * is full the low-bound ("non-essential") terms can no longer produce a hit
+     * on their own, so candidates come only from the essential terms and the
+     * others are probed by skipping ahead. Runs of postings whose block bounds
+     * cannot reach the threshold are skipped without scoring.
+     */
+    private void scoreMaxScore(TermCursor[] cursors, TopHits top) {
+        int n = cursors.length;
+        Arrays.sort(cursors, (a, b) -> Float.compare(a.upperBound, b.upperBound));
+        float[] prefixBound = new float[n];
+        float sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += cursors[i].upperBound;
+            prefixBound[i] = sum * BOUND_SLACK;
+        }
+
+        int firstEssential = 0;
+        float threshold = 0;
+        // Docs up to here already passed the block check for the current threshold
+        long checkedUntil = -1;
+        // Within that range the non-essential terms are bounded by their current blocks
+        float[] rangeBound = new float[n];
+
+        while (true) {
+            boolean full = top.isFull();
+            if (full) {
+                float minScore = top.minScore();
+                if (minScore > threshold) {
+                    threshold = minScore;
+                    checkedUntil = -1;
+                    while (firstEssential < n && prefixBound[firstEssential] < threshold) {
+                        firstEssential++;
+                    }
+                    if (firstEssential == n) {
+                        break;
+                    }
+                }
+            }
+
+            long doc = Long.MAX_VALUE;
+            for (int i = firstEssential; i < n; i++) {
+                doc = Math.min(doc, cursors[i].doc());
+            }
+            if (doc == Long.MAX_VALUE) {
+                break;
+            }
+
+            if (full && doc > checkedUntil) {
+                // Every doc from here to the end of the shortest current block is bounded by the block maxima
+                float blockBound = 0;
+                long blockEnd = Long.MAX_VALUE;
+                for (int i = 0; i < n; i++) {
+                    TermCursor c = cursors[i];
+                    if (i < firstEssential) {
+                        c.advanceTo(doc);
+                    }
+                    if (c.doc() != Long.MAX_VALUE) {
+                        blockBound += c.blockBound();
+                        blockEnd = Math.min(blockEnd, c.blockLastDoc());
+                    }
+                    rangeBound[i] = blockBound * BOUND_SLACK;
+                }
+                if (blockBound * BOUND_SLACK < threshold) {
+                    for (int i = firstEssential; i < n; i++) {
+                        cursors[i].advanceTo(blockEnd + 1);
+                    }
+                    continue;
+                }
+                checkedUntil = blockEnd;
+            }
+
+            float score = 0;
+            for (int i = firstEssential; i < n; i++) {
+                TermCursor c = cursors[i];
+                if (c.doc() == doc) {
+                    score += c.score();
+                    c.pos++;
+                }
+            }
+
+            boolean viable = true;
+            for (int i = firstEssential - 1; i >= 0; i--) {
+                if (full && score + rangeBound[i] < threshold) {
+                    viable = false;
+                    break;
+                }
+                TermCursor c = cursors[i];
+                c.advanceTo(doc);
+                if (c.doc() == doc) {
+                    score += c.score();
+                    c.pos++;
+                }
+            }
+
+            if (viable) {
+                top.offer(doc, score);
+            }
+        }
+    }
+
+    private void scoreDocumentAtATime(TermCursor[] cursors, TopHits top) {
+
+        while (true) {
+            long doc = Long.MAX_VALUE;
+            for (TermCursor c : cursors) {
+                doc = Math.min(doc, c.doc());
+            }
+            if (doc == Long.MAX_VALUE) {
+                break;
+            }
+
+            float score = 0;
+            for (TermCursor c : cursors) {
+                if (c.doc() == doc) {
+                    score += c.score();
+                    c.pos++;
+                }
+            }
+            top.offer(doc, score);
+        }
+    }
+
+    /**
+     * BM25 term-frequency saturation, the per-posting part of the score.
+     */
+    private static float saturation(int tf, int length, float avgLength) {
+        float norm = K1 * (1 - B + B * length / avgLength);
+        return (tf * (K1 + 1)) / (tf + norm);
+    }
+
+    /**
+     * Carries a saturation bound computed at one average length over to another.
+     * A longer average can raise any saturation by at most the ratio of the
+     * averages; a shorter one only lowers it.
+     */
+    private static float rescale(float bound, float fromAvgLength, float toAvgLength) {
+        return toAvgLength > fromAvgLength ? bound * (toAvgLength / fromAvgLength) : bound;
+    }
+
+    private static float idf(int docCount, int docFrequency) {
+        return (float) Math.log(1 + (docCount - docFrequency + 0.5) / (docFrequency + 0.5));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Holds the shared posting lists rather than term strings, so documents add no per-term garbage
+    private record IndexedDocument(PostingList[] postings, int length) {
+    }
+
+    /**
+     * Posting list as parallel primitive arrays sorted by document id. Every
+     * block of postings keeps the highest saturation among its postings,
+     * together with the average length it was computed at. The whole list is
+     * bounded by its highest term frequency and shortest document, which hold
+     * at any average length. Ids mostly arrive in increasing order, so inserts
+     * are usually appends.
+     */
+    private static final class PostingList {
+        final String term;
+        long[] docs = new long[4];
+        int[] tfs = new int[4];
+        int[] lengths = new int[4];
+        int size;
+
+        float[] blockMaxSaturation = new float[1];
+        float[] blockAvgLength = new float[1];
+        int maxTf;
+        int minLength = Integer.MAX_VALUE;
+
+        PostingList(String term) {
+            this.term = term;
+        }
+
+        void insert(long doc, int tf, int length, float avgLength) {
+            maxTf = Math.max(maxTf, tf);
+            minLength = Math.min(minLength, length);
+            int pos;
+            if (size == 0 || docs[size - 1] < doc) {
+                pos = size;
+            } else {
+                pos = Arrays.binarySearch(docs, 0, size, doc);
+                if (pos >= 0) {
+                    tfs[pos] = tf;
+                    lengths[pos] = length;
+                    recomputeBlocks(pos, avgLength);
+                    return;
+                }
+                pos = -pos - 1;
+            }
+
+            if (size == docs.length) {
+                int capacity = size + (size >> 1) + 1;
+                docs = Arrays.copyOf(docs, capacity);
+                tfs = Arrays.copyOf(tfs, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            boolean append = pos == size;
+            if (!append) {
+                System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+                System.arraycopy(tfs, pos, tfs, pos + 1, size - pos);
+                System.arraycopy(lengths, pos, lengths, pos + 1, size - pos);
+            }
+            docs[pos] = doc;
+            tfs[pos] = tf;
+            lengths[pos] = length;
+            size++;
+
+            if (!append) {
+                recomputeBlocks(pos, avgLength);
+                return;
+            }
+
+            float saturation = saturation(tf, length, avgLength);
+            int block = pos / BLOCK_SIZE;
+            ensureBlocks(block + 1);
+            if (pos % BLOCK_SIZE == 0) {
+                blockMaxSaturation[block] = saturation;
+            } else {
+                blockMaxSaturation[block] = Math.max(saturation,
+                        rescale(blockMaxSaturation[block], blockAvgLength[block], avgLength));
+            }
+            blockAvgLength[block] = avgLength;
+        }
+
+        boolean remove(long doc, float avgLength) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos < 0) {
+                return false;
+            }
+            int tail = size - pos - 1;
+            if (tail > 0) {
+                System.arraycopy(docs, pos + 1, docs, pos, tail);
+                System.arraycopy(tfs, pos + 1, tfs, pos, tail);
+                System.arraycopy(lengths, pos + 1, lengths, pos, tail);
+            }
+            size--;
+            recomputeBlocks(pos, avgLength);
+            maxTf = 0;
+            minLength = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                maxTf = Math.max(maxTf, tfs[i]);
+                minLength = Math.min(minLength, lengths[i]);
+            }
+            return true;
+        }
+
+        private void ensureBlocks(int blocks) {
+            if (blocks > blockMaxSaturation.length) {
+                int capacity = Math.max(blocks, blockMaxSaturation.length * 2);
+                blockMaxSaturation = Arrays.copyOf(blockMaxSaturation, capacity);
+                blockAvgLength = Arrays.copyOf(blockAvgLength, capacity);
+            }
+        }
+
+        /**
+         * Rebuilds block bounds from the block containing pos onwards; the
+         * postings after pos have shifted anyway.
+         */
+        private void recomputeBlocks(int pos, float avgLength) {
+            int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            ensureBlocks(blocks);
+            for (int block = pos / BLOCK_SIZE; block < blocks; block++) {
+                int to = Math.min((block + 1) * BLOCK_SIZE, size);
+                float max = 0;
+                for (int i = block * BLOCK_SIZE; i < to; i++) {
+                    max = Math.max(max, saturation(tfs[i], lengths[i], avgLength));
+                }
+                blockMaxSaturation[block] = max;
+                blockAvgLength[block] = avgLength;
+            }
+        }
+    }
+
+    /**
+     * Per-query read position in one posting list.
+     */
+    private static final class TermCursor {
+        final PostingList list;
+        final float idf;
+        final float avgLength;
+        final float upperBound;
+        int pos;
+
+        TermCursor(PostingList list, float idf, float avgLength) {
+            this.list = list;
+            this.idf = idf;
+            this.avgLength = avgLength;
+            // Exact at this average length; a running maximum rescaled on every append kept growing
+            this.upperBound = idf * saturation(list.maxTf, list.minLength, avgLength);
+        }
+
+        long doc() {
+            return pos < list.size ? list.docs[pos] : Long.MAX_VALUE;
+        }
+
+        float score() {
+            return idf * saturation(list.tfs[pos], list.lengths[pos], avgLength);
+        }
+
+        float blockBound() {
+            int block = pos / BLOCK_SIZE;
+            return idf * rescale(list.blockMaxSaturation[block], list.blockAvgLength[block], avgLength);
+        }
+
+        long blockLastDoc() {
+            return list.docs[Math.min((pos / BLOCK_SIZE + 1) * BLOCK_SIZE, list.size) - 1];
+        }
+
+        /**
+         * Moves to the first posting with id >= target (galloping, then binary search).
+         */
+        void advanceTo(long target) {
+            if (pos >= list.size || list.docs[pos] >= target) {
+                return;
+            }
+            int step = 1;
+            int low = pos;
+            int high = pos + 1;
+            while (high < list.size && list.docs[high] < target) {
+                low = high;
+                step <<= 1;
+                high = pos + step;
+            }
+            int found = Arrays.binarySearch(list.docs, low + 1, Math.min(high, list.size - 1) + 1, target);
+            pos = found >= 0 ? found : -found - 1;
+        }
+    }
+
+    /**
+     * Bounded min-heap of (score, doc); ties prefer the higher (newer) id.
+     * Hits at or before the (afterScore, afterId) cursor are ignored.
+     */
+    private static final class TopHits {
+        private final long[] docs;
+        private final float[] scores;
+        private final float afterScore;
+        private final long afterId;
+        private int size;
+
+        TopHits(int capacity, float afterScore, long afterId) {
+            docs = new long[capacity];
+            scores = new float[capacity];
+            this.afterScore = afterScore;
+            this.afterId = afterId;
+        }
+
+        void offer(long doc, float score) {
+            if (better(score, doc, afterScore, afterId) || (score == afterScore && doc == afterId)) {
+                return;
+            }
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (better(score, doc, scores[0], docs[0])) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        boolean isFull() {
+            return size == docs.length;
+        }
+
+        float minScore() {
+            return scores[0];
+        }
+
+        List<Hit> drainBestFirst() {
+            Hit[] ordered = new Hit[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ordered[i] = new Hit(docs[0], scores[0]);
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return Arrays.asList(ordered);
+        }
+
+        private static boolean better(float s1, long d1, float s2, long d2) {
+            return s1 > s2 || (s1 == s2 && d1 > d2);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!better(scores[parent], docs[parent], scores[i], docs[i])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int right = left + 1;
+                int worst = i;
+                if (left < size && better(scores[worst], docs[worst], scores[left], docs[left])) {
+                    worst = left;
+                }
+                if (right < size && better(scores[worst], docs[worst], scores[right], docs[right])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long d = docs[a];
+            docs[a] = docs[b];
+            docs[b] = d;
+            float s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+        }
+    }
+}
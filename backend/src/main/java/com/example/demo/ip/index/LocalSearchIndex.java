@@ -0,0 +1,190 @@
+package com.example.demo.ip.index;
+
+import com.example.demo.ip.dto.SearchCursor;
+import com.example.demo.ip.entity.IPAsset;
+import com.example.demo.ip.repository.IPAssetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-JVM full-text index over IP assets for LOCAL search
+ * (enabled with ip.search.local.engine=memory).
+ *
+ * The index is loaded once in the background after startup and from then on
+ * kept current by the services that write assets, so it never needs a full
+ * rebuild while the application runs. Until the initial load has finished,
+ * LOCAL search keeps using the database.
+ */
+@Slf4j
+@Component
+public class LocalSearchIndex {
+
+    private final IPAssetRepository repository;
+    private final boolean enabled;
+    private final int bootstrapBatchSize;
+    private final InvertedIndex index = new InvertedIndex();
+
+    private volatile boolean ready;
+    // Ids written while the initial load runs; the load must not overwrite them with older rows.
+    // The load's check-and-index and the writers' mark-and-index both hold bootstrapLock, so a
+    // write cannot land between the load's check and its index call
+    private final Object bootstrapLock = new Object();
+    private final Set<Long> touchedDuringBootstrap = new HashSet<>();
+
+    public LocalSearchIndex(
+            IPAssetRepository repository,
+            @Value("${ip.search.local.engine:database}") String engine,
+            @Value("${ip.search.local.bootstrap-batch-size:1000}") int bootstrapBatchSize) {
+        this.repository = repository;
+        this.enabled = "memory".equalsIgnoreCase(engine);
+        this.bootstrapBatchSize = bootstrapBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (!enabled) {
+            return;
+        }
+        Thread loader = new Thread(this::loadAll, "local-search-index-bootstrap");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void loadAll() {
+        long startedAt = System.currentTimeMillis();
+        long lastId = 0;
+        List<IPAsset> batch;
+        try {
+            do {
+                batch = repository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, bootstrapBatchSize));
+                for (IPAsset asset : batch) {
+                    String[] fields = fieldsOf(asset);
+                    synchronized (bootstrapLock) {
+                        if (!touchedDuringBootstrap.contains(asset.getId())) {
+                            index.index(asset.getId(), fields);
+                        }
+                    }
+                    lastId = asset.getId();
+                }
+            } while (batch.size() == bootstrapBatchSize);
+
+            synchronized (bootstrapLock) {
+                ready = true;
+                touchedDuringBootstrap.clear();
+            }
+            log.info("Local search index loaded: {} assets, {} terms in {} ms",
+                    index.size(), index.termCount(), System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.error("Local search index load failed, LOCAL search stays on the database", e);
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Best matching assets (id and BM25 score), best first, continuing after the cursor if given.
+     */
+    public List<InvertedIndex.Hit> search(String query, SearchCursor after, int limit) {
+        return after == null
+                ? index.searchAfter(query, limit, Float.POSITIVE_INFINITY, Long.MAX_VALUE)
+                : index.searchAfter(query, limit, after.rank(), after.id());
+    }
+
+    /*
+     * =======================
+     * INCREMENTAL UPDATES
+     * =======================
+     * Applied after the surrounding transaction commits (or immediately without one),
+     * so rolled-back writes never reach the index.
+     */
+
+    public void indexAfterCommit(IPAsset asset) {
+        indexAllAfterCommit(List.of(asset));
+    }
+
+    public void indexAllAfterCommit(Collection<IPAsset> assets) {
+        if (!enabled || assets.isEmpty()) {
+            return;
+        }
+        // Capture the fields now; the entities may change before commit
+        Map<Long, String[]> documents = new LinkedHashMap<>();
+        for (IPAsset asset : assets) {
+            if (asset.getId() != null) {
+                documents.put(asset.getId(), fieldsOf(asset));
+            }
+        }
+        afterCommit(() -> documents.forEach((id, fields) -> apply(id, () -> index.index(id, fields))));
+    }
+
+    public void removeAfterCommit(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        afterCommit(() -> apply(id, () -> index.remove(id)));
+    }
+
+    /**
+     * Applies a committed write; while the initial load runs, also records
+     * the id so the load skips it.
+     */
+    private void apply(Long id, Runnable write) {
+        if (ready) {
+            write.run();
+            return;
+        }
+        synchronized (bootstrapLock) {
+            if (!ready) {
+                touchedDuringBootstrap.add(id);
+            }
+            write.run();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String[] fieldsOf(IPAsset asset) {
+        List<String> fields = new ArrayList<>(5);
+        fields.add(asset.getTitle());
+        fields.add(asset.getApplicationNumber());
+        fields.add(asset.getOwnerName());
+        fields.add(asset.getInventorName());
+        fields.add(asset.getAbstractText());
+        return fields.toArray(new String[0]);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("documents", index.size());
+        stats.put("terms", index.termCount());
+        return stats;
+    }
+}
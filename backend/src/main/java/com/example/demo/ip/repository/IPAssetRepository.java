@@ -5,7 +5,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,7 +12,7 @@ import java.util.Set;
 import java.util.Optional;
 
 @Repository
-public interface IPAssetRepository extends JpaRepository<IPAsset, Long> {
+public interface IPAssetRepository extends JpaRepository<IPAsset, Long>, IPAssetRepositoryCustom {
 
         @Query("""
                             SELECT i.legalStatus, COUNT(i)
@@ -46,15 +45,9 @@ public interface IPAssetRepository extends JpaRepository<IPAsset, Long> {
 
         Optional<IPAsset> findByApplicationNumber(String applicationNumber);
 
+        // Keyset scan used to load the in-memory search index
+        List<IPAsset> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
         @Query("SELECT i.country, COUNT(i) FROM IPAsset i GROUP BY i.country")
         List<Object[]> countByJurisdiction();
-
-        // Local search
-        @Query("""
-                            SELECT p FROM IPAsset p
-                            WHERE LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                               OR LOWER(p.abstractText) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                               OR LOWER(p.applicationNumber) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                        """)
-        List<IPAsset> searchByKeyword(@Param("keyword") String keyword);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.demo.ip.repository;
+
+import com.example.demo.ip.dto.SearchCursor;
+import com.example.demo.ip.entity.IPAsset;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written JDBC operations on ip_assets that Spring Data cannot derive.
+ */
+public interface IPAssetRepositoryCustom {
+
+    /**
+     * Inserts all assets, skipping any whose application number already
+     * exists (or repeats an earlier asset in the list). One multi-row
+     * INSERT ... ON CONFLICT DO NOTHING on PostgreSQL, a lookup plus one
+     * insert per new row elsewhere (e.g. H2 in tests).
+     *
+     * @return application number -> generated id, for the rows actually inserted
+     */
+    Map<String, Long> insertIgnoringExisting(List<IPAsset> assets);
+
+    /**
+     * Relevance-ranked keyword search over title, abstract and application number,
+     * ordered by rank then id (both descending) and projected onto result-card columns.
+     * On PostgreSQL every query word must start a word of the title or abstract
+     * (tsvector/GIN, stemmed: "graph" finds "graphene", "phene" does not), or the
+     * query must occur anywhere in the application number (trigram index).
+     * Elsewhere (e.g. H2 in tests) it is a LIKE scan for the query as a substring.
+     *
+     * @param after  keyset position to continue after, or null for the first page
+     * @param offset rows to skip (only used without a cursor)
+     */
+    List<IPAssetSearchHit> searchFullText(String query, SearchCursor after, int offset, int limit);
+
+    /**
+     * Result-card projections for the given ids, in no particular order and with rank 0.
+     */
+    List<IPAssetSearchHit> findSearchHitsByIds(Collection<Long> ids);
+}
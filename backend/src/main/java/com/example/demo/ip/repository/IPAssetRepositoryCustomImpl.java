@@ -0,0 +1,280 @@
+package com.example.demo.ip.repository;
+
+import com.example.demo.ip.dto.SearchCursor;
+import com.example.demo.ip.entity.IPAsset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class IPAssetRepositoryCustomImpl implements IPAssetRepositoryCustom {
+
+    private static final String INSERT_COLUMNS = """
+            INSERT INTO ip_assets (title, application_number, country, asset_type, owner_name,
+                                   inventor_name, filing_date, publication_date, reference_source,
+                                   priority_date, grant_date, legal_status, updated_on, abstract_text,
+                                   patent_link, pdf_link, thumbnail)
+            VALUES
+            """;
+
+    private static final int ABSTRACT_SNIPPET_LENGTH = 300;
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ON_CONFLICT = """
+
+            ON CONFLICT (application_number) DO NOTHING
+            RETURNING id, application_number
+            """;
+
+    // Portable fallback (H2 in tests): which of a batch's application numbers are already stored
+    private static final String EXISTING_NUMBERS = """
+            SELECT application_number FROM ip_assets WHERE application_number IN (%s)
+            """;
+
+    // Result-card columns only; the abstract is cut to a snippet in the database
+    private static final String HIT_COLUMNS = """
+            a.id, a.title, a.application_number, a.country, a.legal_status, a.asset_type,
+            a.owner_name, a.inventor_name, a.filing_date,
+            substring(a.abstract_text, 1, %d) AS abstract_snippet
+            """.formatted(ABSTRACT_SNIPPET_LENGTH);
+
+    // Every word of the query must start a word of the document ("graph" finds "graphene");
+    // application numbers match anywhere, through the trigram index
+    private static final String FULL_TEXT_SEARCH = """
+            SELECT * FROM (
+                SELECT %s, ts_rank_cd(a.search_vector, q) AS hit_rank
+                FROM ip_assets a, to_tsquery('english', ?) q
+                WHERE a.search_vector @@ q
+                   OR lower(a.application_number) LIKE ?
+            ) hits
+            """.formatted(HIT_COLUMNS);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Portable fallback (H2 in tests): substring match, title hits ranked first
+    private static final String LIKE_SEARCH = """
+            SELECT * FROM (
+                SELECT %s, CASE WHEN lower(a.title) LIKE ? THEN 1 ELSE 0 END AS hit_rank
+                FROM ip_assets a
+                WHERE lower(a.title) LIKE ?
+                   OR lower(a.abstract_text) LIKE ?
+                   OR lower(a.application_number) LIKE ?
+            ) hits
+            """.formatted(HIT_COLUMNS);
+
+    private static final String AFTER_CURSOR = """
+            WHERE hit_rank < CAST(? AS REAL) OR (hit_rank = CAST(? AS REAL) AND id < ?)
+            """;
+
+    private static final String PAGE = """
+            ORDER BY hit_rank DESC, id DESC
+            LIMIT ? OFFSET ?
+            """;
+
+    private static final String HITS_BY_IDS = """
+            SELECT %s, 0 AS hit_rank
+            FROM ip_assets a
+            WHERE a.id IN (%s)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    @Override
+    public Map<String, Long> insertIgnoringExisting(List<IPAsset> assets) {
+        Map<String, Long> inserted = new HashMap<>();
+        if (assets.isEmpty()) {
+            return inserted;
+        }
+
+        // updatedOn is normally set by @PrePersist, which plain JDBC bypasses
+        LocalDate today = LocalDate.now();
+
+        if (!isPostgres()) {
+            return insertEachIgnoringExisting(assets, today);
+        }
+
+        StringBuilder sql = new StringBuilder(INSERT_COLUMNS);
+        for (int i = 0; i < assets.size(); i++) {
+            sql.append(i == 0 ? "" : ",\n").append(ROW_PLACEHOLDERS);
+        }
+        sql.append(ON_CONFLICT);
+
+        jdbcTemplate.query(sql.toString(),
+                ps -> {
+                    int idx = 1;
+                    for (IPAsset asset : assets) {
+                        idx = bindRow(ps, idx, asset, today);
+                    }
+                },
+                rs -> {
+                    inserted.put(rs.getString("application_number"), rs.getLong("id"));
+                });
+        return inserted;
+    }
+
+    /**
+     * ON CONFLICT is PostgreSQL-only: elsewhere, skip the numbers already
+     * stored and insert the rest one row at a time.
+     */
+    private Map<String, Long> insertEachIgnoringExisting(List<IPAsset> assets, LocalDate today) {
+        List<String> numbers = assets.stream().map(IPAsset::getApplicationNumber).distinct().toList();
+        Set<String> skip = new HashSet<>(jdbcTemplate.queryForList(
+                EXISTING_NUMBERS.formatted(String.join(", ", Collections.nCopies(numbers.size(), "?"))),
+                String.class, numbers.toArray()));
+
+        Map<String, Long> inserted = new HashMap<>();
+        String sql = INSERT_COLUMNS + ROW_PLACEHOLDERS;
+        for (IPAsset asset : assets) {
+            // The first row wins for a number repeated within the batch, as with ON CONFLICT
+            if (!skip.add(asset.getApplicationNumber())) {
+                continue;
+            }
+            KeyHolder keys = new GeneratedKeyHolder();
+            try {
+                jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement(sql, new String[] { "id" });
+                    bindRow(ps, 1, asset, today);
+                    return ps;
+                }, keys);
+            } catch (DuplicateKeyException e) {
+                // Inserted concurrently since the lookup
+                continue;
+            }
+            inserted.put(asset.getApplicationNumber(), keys.getKey().longValue());
+        }
+        return inserted;
+    }
+
+    @Override
+    public List<IPAssetSearchHit> searchFullText(String query, SearchCursor after, int offset, int limit) {
+        String keyword = query.trim().toLowerCase(Locale.ROOT);
+        boolean postgres = isPostgres();
+
+        StringBuilder sql = new StringBuilder(postgres ? FULL_TEXT_SEARCH : LIKE_SEARCH);
+        if (after != null) {
+            sql.append(AFTER_CURSOR);
+        }
+        sql.append(PAGE);
+
+        return jdbcTemplate.query(sql.toString(),
+                ps -> {
+                    int idx = 1;
+                    if (postgres) {
+                        ps.setString(idx++, prefixQuery(keyword));
+                        ps.setString(idx++, "%" + escapeLike(keyword) + "%");
+                    } else {
+                        String pattern = "%" + escapeLike(keyword) + "%";
+                        for (int i = 0; i < 4; i++) {
+                            ps.setString(idx++, pattern);
+                        }
+                    }
+                    if (after != null) {
+                        ps.setFloat(idx++, after.rank());
+                        ps.setFloat(idx++, after.rank());
+                        ps.setLong(idx++, after.id());
+                    }
+                    ps.setInt(idx++, limit);
+                    ps.setInt(idx, after != null ? 0 : offset);
+                },
+                IPAssetRepositoryCustomImpl::mapHit);
+    }
+
+    @Override
+    public List<IPAssetSearchHit> findSearchHitsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(HITS_BY_IDS.formatted(HIT_COLUMNS, placeholders),
+                IPAssetRepositoryCustomImpl::mapHit, ids.toArray());
+    }
+
+    private static IPAssetSearchHit mapHit(ResultSet rs, int rowNum) throws SQLException {
+        Date filingDate = rs.getDate("filing_date");
+        return new IPAssetSearchHit(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("application_number"),
+                rs.getString("country"),
+                rs.getString("legal_status"),
+                rs.getString("asset_type"),
+                rs.getString("owner_name"),
+                rs.getString("inventor_name"),
+                filingDate != null ? filingDate.toLocalDate() : null,
+                rs.getString("abstract_snippet"),
+                rs.getFloat("hit_rank"));
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                    con.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres"));
+            postgres = result;
+        }
+        return result;
+    }
+
+    /**
+     * tsquery requiring every word of the query as a word prefix, e.g.
+     * "graph battery" -> "graph:* & battery:*". Words are letters and digits
+     * only, so nothing in the query is read as tsquery syntax.
+     */
+    static String prefixQuery(String keyword) {
+        return NON_WORD.splitAsStream(keyword)
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private int bindRow(PreparedStatement ps, int idx, IPAsset asset, LocalDate today) throws SQLException {
+        ps.setString(idx++, asset.getTitle());
+        ps.setString(idx++, asset.getApplicationNumber());
+        ps.setString(idx++, asset.getCountry());
+        ps.setString(idx++, asset.getAssetType());
+        ps.setString(idx++, asset.getOwnerName());
+        ps.setString(idx++, asset.getInventorName());
+        ps.setDate(idx++, toSqlDate(asset.getFilingDate()));
+        ps.setDate(idx++, toSqlDate(asset.getPublicationDate()));
+        ps.setString(idx++, asset.getReferenceSource());
+        ps.setDate(idx++, toSqlDate(asset.getPriorityDate()));
+        ps.setDate(idx++, toSqlDate(asset.getGrantDate()));
+        ps.setString(idx++, asset.getLegalStatus());
+        ps.setDate(idx++, toSqlDate(today));
+        ps.setString(idx++, asset.getAbstractText());
+        ps.setString(idx++, asset.getPatentLink());
+        ps.setString(idx++, asset.getPdfLink());
+        ps.setString(idx++, asset.getThumbnail());
+        return idx;
+    }
+
+    private static Date toSqlDate(LocalDate date) {
+        return date != null ? Date.valueOf(date) : null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.ip.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of an ip_assets row onto what a search result card shows,
+ * with the abstract cut to a snippet, plus the hit's relevance rank.
+ */
+public record IPAssetSearchHit(
+        long id,
+        String title,
+        String applicationNumber,
+        String country,
+        String legalStatus,
+        String assetType,
+        String ownerName,
+        String inventorName,
+        LocalDate filingDate,
+        String abstractSnippet,
+        float rank) {
+
+    public IPAssetSearchHit withRank(float newRank) {
+        return new IPAssetSearchHit(id, title, applicationNumber, country, legalStatus, assetType,
+                ownerName, inventorName, filingDate, abstractSnippet, newRank);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.ip.repository;
+
+import com.example.demo.ip.entity.SearchResultCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SearchResultCacheRepository extends JpaRepository<SearchResultCacheEntry, String> {
+
+        @Modifying
+        @Query("DELETE FROM SearchResultCacheEntry e WHERE e.fetchedAt < :cutoff")
+        int deleteFetchedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,19 @@
+package com.example.demo.ip.repository;
+
+import com.example.demo.ip.entity.SerpApiQuotaUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SerpApiQuotaUsageRepository extends JpaRepository<SerpApiQuotaUsage, String> {
+
+        // Relative update, so counts from several instances add up
+        @Modifying
+        @Query("UPDATE SerpApiQuotaUsage u SET u.calls = u.calls + :delta, u.updatedAt = :now WHERE u.periodKey = :period")
+        int addCalls(@Param("period") String period, @Param("delta") long delta, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,262 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.config.OutboundDeadline;
+import com.example.demo.ip.client.SerpApiRateLimiter;
+import com.example.demo.ip.client.TrademarkClient;
+import com.example.demo.ip.dto.FederatedSearchResponse;
+import com.example.demo.ip.dto.FederatedSearchResponse.Source;
+import com.example.demo.ip.dto.FederatedSearchResponse.SourceReport;
+import com.example.demo.ip.dto.FederatedSearchResponse.Status;
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Federated search: SerpAPI patents, USPTO trademarks and the local index
+ * queried at the same time, each against its own deadline counted from the
+ * start of the search.
+ *
+ * A source that misses its deadline is cancelled and reported as TIMEOUT,
+ * and the others are returned without it, so a search never waits longer than
+ * the longest deadline. The source's outbound HTTP calls run under the same
+ * deadline ({@link OutboundDeadline}), so a timed-out source also gives back
+ * its worker and connection instead of blocking in a socket read. Results are
+ * merged in source order and deduplicated by application number.
+ */
+@Service
+@Slf4j
+public class FederatedSearchService {
+
+    static final int TRADEMARK_LIMIT = 20;
+
+    private final IPSearchService ipSearchService;
+    private final TrademarkClient trademarkClient;
+    private final com.example.demo.monitoring.MonitoringService monitoringService;
+    private final Map<Source, Long> deadlineNanos = new EnumMap<>(Source.class);
+    private final ThreadPoolExecutor executor;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public FederatedSearchService(
+            IPSearchService ipSearchService,
+            TrademarkClient trademarkClient,
+            com.example.demo.monitoring.MonitoringService monitoringService,
+            @Value("${ip.search.federated.patents-deadline:6s}") Duration patentsDeadline,
+            @Value("${ip.search.federated.trademarks-deadline:4s}") Duration trademarksDeadline,
+            @Value("${ip.search.federated.local-deadline:2s}") Duration localDeadline,
+            @Value("${ip.search.federated.threads:24}") int threads,
+            @Value("${ip.search.federated.queue-capacity:0}") int queueCapacity) {
+        this(ipSearchService, trademarkClient, monitoringService, patentsDeadline, trademarksDeadline,
+                localDeadline, threads, queueCapacity, System::nanoTime);
+    }
+
+    FederatedSearchService(IPSearchService ipSearchService, TrademarkClient trademarkClient,
+            com.example.demo.monitoring.MonitoringService monitoringService,
+            Duration patentsDeadline, Duration trademarksDeadline, Duration localDeadline,
+            int threads, int queueCapacity, LongSupplier nanoClock) {
+
+        this.ipSearchService = ipSearchService;
+        this.trademarkClient = trademarkClient;
+        this.monitoringService = monitoringService;
+        this.nanoClock = nanoClock;
+        deadlineNanos.put(Source.PATENTS, patentsDeadline.toNanos());
+        deadlineNanos.put(Source.TRADEMARKS, trademarksDeadline.toNanos());
+        deadlineNanos.put(Source.LOCAL, localDeadline.toNanos());
+
+        // Bounded: a source that finds no free worker is reported REJECTED, never queued behind a slow one
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "federated-search-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public FederatedSearchResponse search(String query) {
+
+        monitoringService.recordSearch();
+
+        if (query == null || query.isBlank()) {
+            return new FederatedSearchResponse(List.of(), List.of());
+        }
+
+        // Worker threads have no request; SerpAPI calls stay on this user's interactive turn
+        String user = SerpApiRateLimiter.currentUser();
+        long start = nanoClock.getAsLong();
+
+        Map<Source, SourceCall> calls = new EnumMap<>(Source.class);
+        calls.put(Source.PATENTS, new SourceCall(start, deadlineNanos.get(Source.PATENTS),
+                () -> SerpApiRateLimiter.onBehalfOf(user, () -> ipSearchService.searchPatentSource(query, 0))));
+        calls.put(Source.TRADEMARKS, new SourceCall(start, deadlineNanos.get(Source.TRADEMARKS),
+                () -> trademarkClient.searchTrademarks(query.trim(), TRADEMARK_LIMIT)));
+        calls.put(Source.LOCAL, new SourceCall(start, deadlineNanos.get(Source.LOCAL),
+                () -> ipSearchService.searchLocalSource(query)));
+
+        Map<Source, Future<List<IPSearchResultDTO>>> futures = new EnumMap<>(Source.class);
+        calls.forEach((source, call) -> {
+            try {
+                futures.put(source, executor.submit(call));
+            } catch (RejectedExecutionException e) {
+                log.warn("No worker free for federated source {}", source);
+            }
+        });
+
+        List<SourceReport> reports = new ArrayList<>();
+        List<List<IPSearchResultDTO>> answered = new ArrayList<>();
+
+        for (Source source : Source.values()) {
+            Future<List<IPSearchResultDTO>> future = futures.get(source);
+            if (future == null) {
+                reports.add(new SourceReport(source, Status.REJECTED, 0, 0));
+                continue;
+            }
+
+            long remaining = deadlineNanos.get(source) - (nanoClock.getAsLong() - start);
+            Status status;
+            List<IPSearchResultDTO> results = List.of();
+            try {
+                results = future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                if (calls.get(source).timedOut) {
+                    // Its HTTP call was cut off at the deadline just before we gave up waiting
+                    results = List.of();
+                    status = Status.TIMEOUT;
+                } else {
+                    status = Status.OK;
+                }
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                status = Status.TIMEOUT;
+            } catch (ExecutionException e) {
+                log.warn("Federated source {} failed for '{}': {}", source, query, e.getCause().toString());
+                status = Status.FAILED;
+            } catch (CancellationException e) {
+                status = Status.FAILED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(pending -> pending.cancel(true));
+                status = Status.FAILED;
+            }
+
+            answered.add(results);
+            long latencyNanos = calls.get(source).finishedAt(nanoClock.getAsLong()) - start;
+            reports.add(new SourceReport(source, status, TimeUnit.NANOSECONDS.toMillis(latencyNanos), results.size()));
+        }
+
+        return new FederatedSearchResponse(merge(answered), reports);
+    }
+
+    /**
+     * Concatenates the sources' results, keeping the first result for each
+     * application number. Results are not modified: they may be cached pages.
+     */
+    static List<IPSearchResultDTO> merge(List<List<IPSearchResultDTO>> sources) {
+        Set<String> seen = new HashSet<>();
+        List<IPSearchResultDTO> merged = new ArrayList<>();
+
+        for (List<IPSearchResultDTO> results : sources) {
+            for (IPSearchResultDTO result : results) {
+                String key = applicationKey(result.getApplicationNumber());
+                if (key == null) {
+                    merged.add(result);
+                    continue;
+                }
+                if (seen.add(key)) {
+                    merged.add(result);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Application number without separators or case ("US 17/123,456" and
+     * "us17123456" are the same application); null when there is none.
+     */
+    static String applicationKey(String applicationNumber) {
+        if (applicationNumber == null) {
+            return null;
+        }
+        String key = applicationNumber.replaceAll("[^A-Za-z0-9]", "").toUpperCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One source's search, with its outbound calls bounded by the source's
+     * deadline; notes when it finished, so its latency is not stretched by
+     * waiting on the sources collected before it.
+     */
+    private final class SourceCall implements Callable<List<IPSearchResultDTO>> {
+
+        private final long searchStart;
+        private final long deadline;
+        private final Supplier<List<IPSearchResultDTO>> search;
+        private volatile boolean finished;
+        private volatile long finishedNanos;
+        private volatile boolean timedOut;
+
+        private SourceCall(long searchStart, long deadline, Supplier<List<IPSearchResultDTO>> search) {
+            this.searchStart = searchStart;
+            this.deadline = deadline;
+            this.search = search;
+        }
+
+        @Override
+        public List<IPSearchResultDTO> call() {
+            try {
+                long remaining = deadline - (nanoClock.getAsLong() - searchStart);
+                List<IPSearchResultDTO> results = OutboundDeadline.within(Duration.ofNanos(Math.max(0, remaining)), () -> {
+                    List<IPSearchResultDTO> answer = search.get();
+                    timedOut = OutboundDeadline.hasPassed();
+                    return answer;
+                });
+                return results != null ? results : List.of();
+            } finally {
+                finishedNanos = nanoClock.getAsLong();
+                finished = true;
+            }
+        }
+
+        /**
+         * When the search finished, or now if it is still running.
+         */
+        private long finishedAt(long now) {
+            return finished ? finishedNanos : now;
+        }
+    }
+}
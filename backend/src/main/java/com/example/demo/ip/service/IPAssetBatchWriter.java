@@ -0,0 +1,147 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.ip.entity.IPAsset;
+import com.example.demo.ip.index.LocalSearchIndex;
+import com.example.demo.ip.repository.IPAssetRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists external search results as IPAssets in a fixed number of round trips:
+ * one lookup of the known application numbers, one multi-row insert for the
+ * rest, and (only if another request won an insert race) one more lookup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IPAssetBatchWriter {
+
+    private final IPAssetRepository repository;
+    private final LocalSearchIndex localSearchIndex;
+
+    /**
+     * Upserts the results and writes the resulting asset ids back onto the DTOs.
+     */
+    @Transactional
+    public void persist(List<IPSearchResultDTO> results) {
+
+        Map<String, List<IPSearchResultDTO>> byNumber = new LinkedHashMap<>();
+        for (IPSearchResultDTO dto : results) {
+            if (dto.getApplicationNumber() != null) {
+                byNumber.computeIfAbsent(dto.getApplicationNumber(), k -> new ArrayList<>()).add(dto);
+            }
+        }
+
+        if (byNumber.isEmpty()) {
+            return;
+        }
+
+        for (IPAsset existing : repository.findByApplicationNumberIn(byNumber.keySet())) {
+            List<IPSearchResultDTO> dtos = byNumber.remove(existing.getApplicationNumber());
+            if (dtos != null) {
+                dtos.forEach(dto -> dto.setId(existing.getId()));
+            }
+        }
+
+        if (byNumber.isEmpty()) {
+            return;
+        }
+
+        List<IPAsset> missing = new ArrayList<>(byNumber.size());
+        for (List<IPSearchResultDTO> dtos : byNumber.values()) {
+            missing.add(mapToEntity(dtos.get(0)));
+        }
+
+        Map<String, Long> inserted = repository.insertIgnoringExisting(missing);
+        List<IPAsset> insertedAssets = new ArrayList<>(inserted.size());
+
+        for (IPAsset asset : missing) {
+            Long id = inserted.get(asset.getApplicationNumber());
+            if (id == null) {
+                continue;
+            }
+            asset.setId(id);
+            insertedAssets.add(asset);
+            for (IPSearchResultDTO dto : byNumber.remove(asset.getApplicationNumber())) {
+                dto.setId(id);
+                dto.setLegalStatus(asset.getLegalStatus());
+                dto.setUpdatedOn(LocalDate.now().toString());
+            }
+        }
+
+        localSearchIndex.indexAllAfterCommit(insertedAssets);
+
+        // Anything left was inserted concurrently by another request
+        if (!byNumber.isEmpty()) {
+            Set<String> raced = new HashSet<>(byNumber.keySet());
+            for (IPAsset alreadySaved : repository.findByApplicationNumberIn(raced)) {
+                List<IPSearchResultDTO> dtos = byNumber.get(alreadySaved.getApplicationNumber());
+                if (dtos != null) {
+                    dtos.forEach(dto -> dto.setId(alreadySaved.getId()));
+                }
+            }
+            log.debug("Patents already inserted concurrently: {}", raced);
+        }
+    }
+
+    private IPAsset mapToEntity(IPSearchResultDTO dto) {
+
+        IPAsset asset = new IPAsset();
+
+        asset.setTitle(dto.getTitle());
+        asset.setAssetType(dto.getAssetType());
+        asset.setApplicationNumber(dto.getApplicationNumber());
+        asset.setCountry(dto.getCountry());
+        asset.setOwnerName(dto.getOwnerName());
+        asset.setInventorName(dto.getInventorName());
+        asset.setReferenceSource(dto.getReferenceSource());
+        asset.setAbstractText(dto.getAbstractText());
+
+        asset.setFilingDate(parseDate(dto.getFilingDate()));
+        asset.setPublicationDate(parseDate(dto.getPublicationDate()));
+        asset.setPriorityDate(parseDate(dto.getPriorityDate()));
+        asset.setGrantDate(parseDate(dto.getGrantDate()));
+
+        asset.setPatentLink(dto.getPatentLink());
+        asset.setPdfLink(dto.getPdfLink());
+        asset.setThumbnail(dto.getThumbnail());
+
+        asset.setLegalStatus(deriveStatus(asset.getFilingDate(), asset.getGrantDate()));
+
+        return asset;
+    }
+
+    private LocalDate parseDate(String dateStr) {
+
+        if (dateStr == null || dateStr.trim().isEmpty()) {
+            return null;
+        }
+
+        try {
+            return LocalDate.parse(dateStr);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String deriveStatus(LocalDate filing, LocalDate grant) {
+
+        if (grant != null)
+            return "GRANTED";
+        if (filing != null && filing.plusYears(20).isBefore(LocalDate.now()))
+            return "EXPIRED";
+
+        return "FILED";
+    }
+}
@@ -3,6 +3,7 @@ package com.example.demo.ip.service;
 import com.example.demo.ip.dto.IPAssetDTO;
 import com.example.demo.ip.entity.IPAsset;
 import com.example.demo.ip.exception.IPAssetNotFoundException;
+import com.example.demo.ip.index.LocalSearchIndex;
 import com.example.demo.ip.mapper.IPAssetMapper;
 import com.example.demo.ip.repository.IPAssetRepository;
 
@@ -24,6 +25,7 @@ public class IPAssetService {
 
     private final IPAssetRepository repository;
     private final IPAssetMapper mapper;
+    private final LocalSearchIndex localSearchIndex;
 
     /**
      * Get all IP assets (DTO-safe)
@@ -60,6 +62,7 @@ public class IPAssetService {
     public IPAssetDTO create(IPAssetDTO dto) {
         IPAsset entity = mapper.toEntity(dto);
         IPAsset saved = repository.save(entity);
+        localSearchIndex.indexAfterCommit(saved);
         return mapper.toDto(saved);
     }
 
@@ -72,7 +75,9 @@ public class IPAssetService {
                 .orElseThrow(() -> new IPAssetNotFoundException("IP Asset not found with id: " + id));
 
         mapper.updateFromDto(dto, existing);
-        return mapper.toDto(repository.save(existing));
+        IPAsset saved = repository.save(existing);
+        localSearchIndex.indexAfterCommit(saved);
+        return mapper.toDto(saved);
     }
 
     /**
@@ -84,6 +89,7 @@ public class IPAssetService {
             throw new IPAssetNotFoundException("IP Asset not found with id: " + id);
         }
         repository.deleteById(id);
+        localSearchIndex.removeAfterCommit(id);
     }
 
     /**
@@ -0,0 +1,227 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind stage for external search results.
+ *
+ * Searches hand their results to a bounded queue and return immediately; a
+ * single background worker drains the queue in batches through
+ * {@link IPAssetBatchWriter}. When the queue stays full the submitting request
+ * writes its own overflow (back-pressure), and on shutdown the remaining
+ * entries are flushed so nothing queued is lost.
+ *
+ * A submission may carry a follow-up task (storing the persistent search
+ * cache row) that the worker runs once all of its results are persisted.
+ */
+@Slf4j
+@Component
+public class IPAssetWriteBehindQueue {
+
+    private final IPAssetBatchWriter batchWriter;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong callerRunsFlushes = new AtomicLong();
+    private final AtomicLong skippedFollowUps = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    public IPAssetWriteBehindQueue(
+            IPAssetBatchWriter batchWriter,
+            @Value("${ip.search.write-behind.capacity:10000}") int capacity,
+            @Value("${ip.search.write-behind.batch-size:200}") int batchSize,
+            @Value("${ip.search.write-behind.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${ip.search.write-behind.offer-timeout-ms:50}") long offerTimeoutMs) {
+
+        this.batchWriter = batchWriter;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+
+        this.worker = new Thread(this::drainLoop, "ip-asset-write-behind");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues the results for persistence. Copies are queued, so the caller's
+     * DTOs (which may also sit in the search cache) are never mutated later.
+     */
+    public void submit(List<IPSearchResultDTO> results) {
+        submit(results, null);
+    }
+
+    /**
+     * Like {@link #submit(List)}, then runs afterPersisted on the worker once
+     * every queued result of this call has been flushed. Skipped when a
+     * flush fails or the queue overflows into the caller, so the task never
+     * runs on the request thread.
+     */
+    public void submit(List<IPSearchResultDTO> results, Runnable afterPersisted) {
+        List<IPSearchResultDTO> pending = new ArrayList<>(results.size());
+        for (IPSearchResultDTO dto : results) {
+            if (dto.getApplicationNumber() != null) {
+                IPSearchResultDTO copy = new IPSearchResultDTO();
+                BeanUtils.copyProperties(dto, copy);
+                pending.add(copy);
+            }
+        }
+
+        List<IPSearchResultDTO> overflow = null;
+        for (int i = 0; i < pending.size(); i++) {
+            // The last result carries the task: FIFO order puts the others in this or an earlier batch
+            Runnable task = overflow == null && i == pending.size() - 1 ? afterPersisted : null;
+            if (!offer(new Entry(pending.get(i), task))) {
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+                overflow.add(pending.get(i));
+            }
+        }
+
+        if (overflow != null) {
+            if (afterPersisted != null) {
+                skippedFollowUps.incrementAndGet();
+            }
+            // Queue is saturated: make the producer pay for its own write
+            callerRunsFlushes.incrementAndGet();
+            flush(overflow);
+        }
+    }
+
+    private boolean offer(Entry entry) {
+        if (!running) {
+            return false;
+        }
+        try {
+            if (queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                enqueued.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flushEntries(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushEntries(List<Entry> batch) {
+        boolean flushed = flush(batch.stream().map(Entry::result).toList());
+        for (Entry entry : batch) {
+            if (entry.afterPersisted() == null) {
+                continue;
+            }
+            if (!flushed) {
+                skippedFollowUps.incrementAndGet();
+                continue;
+            }
+            try {
+                entry.afterPersisted().run();
+            } catch (RuntimeException e) {
+                log.warn("Follow-up after persisting search results failed", e);
+            }
+        }
+    }
+
+    private boolean flush(List<IPSearchResultDTO> batch) {
+        long startedAt = System.nanoTime();
+        try {
+            batchWriter.persist(batch);
+            persisted.addAndGet(batch.size());
+            return true;
+        } catch (Exception e) {
+            failedRows.addAndGet(batch.size());
+            log.error("Failed to persist {} external search results", batch.size(), e);
+            return false;
+        } finally {
+            long elapsed = System.nanoTime() - startedAt;
+            flushes.incrementAndGet();
+            totalFlushNanos.addAndGet(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            lastFlushNanos = elapsed;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.join(flushIntervalMs * 4);
+
+        // Worker is gone (or stuck); persist whatever is still queued on this thread
+        List<Entry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            flushEntries(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+        }
+        if (!remaining.isEmpty()) {
+            log.info("Flushed {} queued search results on shutdown", remaining.size());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long flushCount = flushes.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        stats.put("enqueued", enqueued.get());
+        stats.put("persisted", persisted.get());
+        stats.put("failedRows", failedRows.get());
+        stats.put("flushes", flushCount);
+        stats.put("callerRunsFlushes", callerRunsFlushes.get());
+        stats.put("skippedFollowUps", skippedFollowUps.get());
+        stats.put("lastFlushMs", lastFlushNanos / 1_000_000.0);
+        stats.put("avgFlushMs", flushCount > 0 ? totalFlushNanos.get() / 1_000_000.0 / flushCount : 0.0);
+        stats.put("maxFlushMs", maxFlushNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private record Entry(IPSearchResultDTO result, Runnable afterPersisted) {
+    }
+}
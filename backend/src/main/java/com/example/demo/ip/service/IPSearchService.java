@@ -1,22 +1,29 @@
 package com.example.demo.ip.service;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.PageRequest;
 
-import com.example.demo.ip.client.ExternalPatentClient;
+import com.example.demo.ip.client.ExternalSearchCircuitBreaker;
+import com.example.demo.ip.dto.IPSearchPage;
 import com.example.demo.ip.dto.IPSearchRequest;
 import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.ip.dto.SearchCursor;
 import com.example.demo.ip.entity.IPAsset;
 import com.example.demo.ip.exception.IPAssetNotFoundException;
+import com.example.demo.ip.exception.InvalidSearchPageException;
+import com.example.demo.ip.index.InvertedIndex;
+import com.example.demo.ip.index.LocalSearchIndex;
 import com.example.demo.ip.repository.IPAssetRepository;
+import com.example.demo.ip.repository.IPAssetSearchHit;
 
 @Service
 @RequiredArgsConstructor
@@ -24,10 +31,18 @@ import com.example.demo.ip.repository.IPAssetRepository;
 @Slf4j
 public class IPSearchService {
 
-    private static final int PAGE_SIZE = 20;
+    static final int PAGE_SIZE = 20;
+    private static final int LOCAL_PAGE_SIZE = 60;
+    // Offset paging ("page" without a cursor) stops here; deeper LOCAL pages must use the cursor
+    private static final int MAX_OFFSET_PAGES = 10;
 
-    private final ExternalPatentClient externalPatentClient;
+    private final PatentPageFetcher patentPageFetcher;
+    private final ExternalSearchCircuitBreaker circuitBreaker;
+    private final PersistentSearchCache persistentSearchCache;
+    private final QueryCanonicalizer queryCanonicalizer;
     private final IPAssetRepository repository;
+    private final IPAssetWriteBehindQueue writeBehindQueue;
+    private final LocalSearchIndex localSearchIndex;
     private final com.example.demo.monitoring.MonitoringService monitoringService;
 
     public IPSearchResultDTO getIPDetails(Long id) {
@@ -39,12 +54,25 @@ public class IPSearchService {
         return mapToDTO(asset);
     }
 
+    public IPSearchResultDTO getIPDetailsByApplicationNumber(String applicationNumber) {
+        monitoringService.recordPatentView();
+
+        IPAsset asset = repository.findByApplicationNumber(applicationNumber)
+                .orElseThrow(() -> new IPAssetNotFoundException("IP Asset not found with application number: " + applicationNumber));
+
+        return mapToDTO(asset);
+    }
+
     public List<IPSearchResultDTO> search(IPSearchRequest request) {
+        return searchPage(request).results();
+    }
+
+    public IPSearchPage searchPage(IPSearchRequest request) {
 
         monitoringService.recordSearch();
 
         if (request == null || request.getQuery() == null || request.getQuery().isBlank()) {
-            return List.of();
+            return IPSearchPage.of(List.of());
         }
 
         String query = request.getQuery().trim();
@@ -53,81 +81,147 @@ public class IPSearchService {
         // LOCAL SEARCH
 
         if ("LOCAL".equalsIgnoreCase(source)) {
+            return searchLocal(query, request);
+        }
 
-            List<IPAsset> cachedAssets = repository
-                    .searchByKeyword(query);
+        // EXTERNAL SEARCH: one canonical query for every cache tier and SerpAPI
+        int page = request.getPage() != null ? Math.max(0, request.getPage()) : 0;
+        if (page >= MAX_OFFSET_PAGES) {
+            throw new InvalidSearchPageException("EXTERNAL search stops at page " + MAX_OFFSET_PAGES);
+        }
+        String canonical = queryCanonicalizer.canonicalize(query);
+        if (page == 0) {
+            queryCanonicalizer.recordSearch(query, canonical);
+        }
+        return IPSearchPage.of(searchExternal(canonical, page, true));
+    }
 
-            if (cachedAssets.isEmpty()) {
-                return List.of();
+    /**
+     * One page of EXTERNAL patent results for federated and streaming search
+     * (empty past the last page). No LOCAL fallback: the local index is a
+     * source of its own there.
+     */
+    public List<IPSearchResultDTO> searchPatentSource(String query, int page) {
+        if (page >= MAX_OFFSET_PAGES) {
+            return List.of();
+        }
+        return searchExternal(queryCanonicalizer.canonicalize(query.trim()), page, false);
+    }
+
+    /**
+     * First page of relevance-ranked LOCAL results for federated search.
+     */
+    public List<IPSearchResultDTO> searchLocalSource(String query) {
+        return searchLocalFallback(query.trim());
+    }
+
+    /**
+     * One page of EXTERNAL results through the cache tiers: in-memory pages,
+     * then (first page only) the persistent cache table, then SerpAPI; LOCAL
+     * search when the first page comes up empty (if localFallback). The next
+     * page is prefetched in the background.
+     */
+    private List<IPSearchResultDTO> searchExternal(String query, int page, boolean localFallback) {
+
+        boolean cached = patentPageFetcher.isPageCached(query, PAGE_SIZE, page);
+        if (!cached) {
+            if (page == 0) {
+                List<IPAsset> persisted = persistentSearchCache.get(query, PAGE_SIZE);
+                if (persisted != null) {
+                    // Already in ip_assets, so nothing to write behind
+                    List<IPSearchResultDTO> results = persisted.stream().map(this::mapToDTO).toList();
+                    patentPageFetcher.warmCache(query, PAGE_SIZE, results);
+                    patentPageFetcher.prefetchAfter(query, PAGE_SIZE, page, results.size(), MAX_OFFSET_PAGES);
+                    return results;
+                }
             }
 
-            return cachedAssets.stream()
-                    .limit(60)
-                    .map(this::mapToDTO)
-                    .toList();
+            // While SerpAPI is failing, don't pay for a doomed round trip
+            if (circuitBreaker.isOpen()) {
+                log.debug("SerpAPI circuit breaker open, serving '{}' from local search", query);
+                return localFallback && page == 0 ? searchLocalFallback(query) : List.of();
+            }
         }
 
-        // EXTERNAL SEARCH
-        List<IPSearchResultDTO> results = new ArrayList<>();
+        List<IPSearchResultDTO> results = patentPageFetcher.fetchPage(query, PAGE_SIZE, page);
 
-        for (int page = 0; page < 3; page++) {
-
-            int start = page * PAGE_SIZE;
+        if (results.isEmpty()) {
+            return localFallback && page == 0 ? searchLocalFallback(query) : List.of();
+        }
 
-            List<IPSearchResultDTO> pageResults = externalPatentClient.searchPatents(query, PAGE_SIZE, start);
+        // SAFE CACHE: persisted in the background, results are keyed by application number.
+        // A first page fresh from SerpAPI also gets its persistent cache row, stored by the
+        // write-behind worker once the assets it points at are in ip_assets
+        if (page == 0 && !cached) {
+            writeBehindQueue.submit(results, () -> persistentSearchCache.put(query, PAGE_SIZE, results));
+        } else {
+            writeBehindQueue.submit(results);
+        }
 
-            if (pageResults == null || pageResults.isEmpty()) {
-                break;
-            }
+        patentPageFetcher.prefetchAfter(query, PAGE_SIZE, page, results.size(), MAX_OFFSET_PAGES);
+        return results;
+    }
 
-            results.addAll(pageResults);
+    /**
+     * One page of LOCAL results: keyset-paged after the request's cursor, or
+     * offset-paged for the first few pages. Reads one extra row to know
+     * whether a next page exists.
+     */
+    private IPSearchPage searchLocal(String query, IPSearchRequest request) {
+
+        SearchCursor after = SearchCursor.decode(request.getCursor());
+        int page = after == null && request.getPage() != null ? Math.max(0, request.getPage()) : 0;
+        if (page >= MAX_OFFSET_PAGES) {
+            throw new InvalidSearchPageException("Pages beyond " + MAX_OFFSET_PAGES + " need a cursor");
         }
+        int offset = page * LOCAL_PAGE_SIZE;
 
-        if (results.isEmpty()) {
-            return repository
-                    .findByTitleContainingIgnoreCase(query, PageRequest.of(0, PAGE_SIZE))
-                    .getContent()
-                    .stream()
-                    .map(this::mapToDTO)
-                    .toList();
+        List<IPAssetSearchHit> hits = localSearchIndex.isReady()
+                ? searchIndex(query, after, offset, LOCAL_PAGE_SIZE + 1)
+                : repository.searchFullText(query, after, offset, LOCAL_PAGE_SIZE + 1);
+
+        String nextCursor = null;
+        if (hits.size() > LOCAL_PAGE_SIZE) {
+            hits = hits.subList(0, LOCAL_PAGE_SIZE);
+            IPAssetSearchHit last = hits.get(LOCAL_PAGE_SIZE - 1);
+            nextCursor = new SearchCursor(last.rank(), last.id()).encode();
         }
 
-        // SAFE CACHE
+        return new IPSearchPage(hits.stream().map(this::mapToDTO).toList(), nextCursor);
+    }
 
-        for (IPSearchResultDTO dto : results) {
+    /**
+     * First page of relevance-ranked LOCAL results, used when EXTERNAL search
+     * has nothing to offer (and as the LOCAL source of federated search).
+     */
+    private List<IPSearchResultDTO> searchLocalFallback(String query) {
+        List<IPAssetSearchHit> hits = localSearchIndex.isReady()
+                ? searchIndex(query, null, 0, PAGE_SIZE)
+                : repository.searchFullText(query, null, 0, PAGE_SIZE);
+        return hits.stream().map(this::mapToDTO).toList();
+    }
 
-            if (dto.getApplicationNumber() == null) {
-                continue;
-            }
-            IPAsset existing = repository
-                    .findByApplicationNumber(dto.getApplicationNumber())
-                    .orElse(null);
-
-            if (existing != null) {
-                dto.setId(existing.getId());
-            } else {
-                try {
-                    IPAsset saved = repository.save(mapToEntity(dto));
-                    dto.setId(saved.getId());
-                    dto.setLegalStatus(saved.getLegalStatus());
-                    dto.setUpdatedOn(saved.getUpdatedOn() != null
-                            ? saved.getUpdatedOn().toString()
-                            : null);
-                } catch (DataIntegrityViolationException e) {
-                    // Another request inserted it concurrently
-                    IPAsset alreadySaved = repository
-                            .findByApplicationNumber(dto.getApplicationNumber())
-                            .orElse(null);
-
-                    if (alreadySaved != null) {
-                        dto.setId(alreadySaved.getId());
-                    }
-
-                    log.debug("Patent already inserted concurrently: {}", dto.getApplicationNumber());
-                }
-            }
+    private List<IPAssetSearchHit> searchIndex(String query, SearchCursor after, int offset, int limit) {
+
+        List<InvertedIndex.Hit> ranked = localSearchIndex.search(query, after, offset + limit);
+        if (ranked.size() <= offset) {
+            return List.of();
         }
-        return results;
+        ranked = ranked.subList(offset, ranked.size());
+
+        Map<Long, IPAssetSearchHit> byId = repository
+                .findSearchHitsByIds(ranked.stream().map(InvertedIndex.Hit::id).toList())
+                .stream()
+                .collect(Collectors.toMap(IPAssetSearchHit::id, Function.identity()));
+
+        // Keep the index order; ids deleted since the search are dropped
+        return ranked.stream()
+                .map(hit -> {
+                    IPAssetSearchHit row = byId.get(hit.id());
+                    return row != null ? row.withRank(hit.score()) : null;
+                })
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     private IPSearchResultDTO mapToDTO(IPAsset asset) {
@@ -156,53 +250,22 @@ public class IPSearchService {
         return dto;
     }
 
-    private IPAsset mapToEntity(IPSearchResultDTO dto) {
-
-        IPAsset asset = new IPAsset();
-
-        asset.setTitle(dto.getTitle());
-        asset.setAssetType(dto.getAssetType());
-        asset.setApplicationNumber(dto.getApplicationNumber());
-        asset.setCountry(dto.getCountry());
-        asset.setOwnerName(dto.getOwnerName());
-        asset.setInventorName(dto.getInventorName());
-        asset.setReferenceSource(dto.getReferenceSource());
-        asset.setAbstractText(dto.getAbstractText());
-
-        asset.setFilingDate(parseDate(dto.getFilingDate()));
-        asset.setPublicationDate(parseDate(dto.getPublicationDate()));
-        asset.setPriorityDate(parseDate(dto.getPriorityDate()));
-        asset.setGrantDate(parseDate(dto.getGrantDate()));
-
-        asset.setPatentLink(dto.getPatentLink());
-        asset.setPdfLink(dto.getPdfLink());
-        asset.setThumbnail(dto.getThumbnail());
-
-        asset.setLegalStatus(deriveStatus(asset.getFilingDate(), asset.getGrantDate()));
-
-        return asset;
-    }
-
-    private LocalDate parseDate(String dateStr) {
+    private IPSearchResultDTO mapToDTO(IPAssetSearchHit hit) {
 
-        if (dateStr == null || dateStr.trim().isEmpty()) {
-            return null;
-        }
-
-        try {
-            return LocalDate.parse(dateStr);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private String deriveStatus(LocalDate filing, LocalDate grant) {
+        IPSearchResultDTO dto = new IPSearchResultDTO();
 
-        if (grant != null)
-            return "GRANTED";
-        if (filing != null && filing.plusYears(20).isBefore(LocalDate.now()))
-            return "EXPIRED";
+        dto.setId(hit.id());
+        dto.setTitle(hit.title());
+        dto.setApplicationNumber(hit.applicationNumber());
+        dto.setCountry(hit.country());
+        dto.setLegalStatus(hit.legalStatus());
+        dto.setAssetType(hit.assetType());
+        dto.setOwnerName(hit.ownerName());
+        dto.setInventorName(hit.inventorName());
+        dto.setFilingDate(hit.filingDate() != null ? hit.filingDate().toString() : null);
+        // Snippet only; the details view loads the full record by id
+        dto.setAbstractText(hit.abstractSnippet());
 
-        return "FILED";
+        return dto;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,244 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.ip.client.CallBudget;
+import com.example.demo.ip.client.ExternalPatentClient;
+import com.example.demo.ip.client.PatentSearchKey;
+import com.example.demo.ip.client.SerpApiRateLimiter;
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Fetches SerpAPI result pages one at a time and prefetches the pages a
+ * user is likely to ask for next.
+ *
+ * After a full page is served, the following page is fetched in the
+ * background into the page cache, so "load more" does not wait for SerpAPI.
+ * Once a user has actually paged past the first page, prefetch runs further
+ * ahead (up to depth pages). Prefetch never blocks a search: it is skipped
+ * when the pool is saturated or the per-minute call budget is spent, and it
+ * stops at the first short page.
+ */
+@Slf4j
+@Component
+public class PatentPageFetcher {
+
+    private final ExternalPatentClient externalPatentClient;
+    private final CacheManager cacheManager;
+    private final boolean prefetchEnabled;
+    private final int prefetchDepth;
+    private final CallBudget budget;
+    private final ThreadPoolExecutor executor;
+
+    // Pages currently being prefetched, and pages prefetched but not yet served
+    private final Set<PatentSearchKey> inFlight = ConcurrentHashMap.newKeySet();
+    private final com.github.benmanes.caffeine.cache.Cache<PatentSearchKey, Boolean> prefetched;
+
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skippedBusy = new AtomicLong();
+    private final AtomicLong skippedBudget = new AtomicLong();
+    private final AtomicLong skippedUnavailable = new AtomicLong();
+
+    @Autowired
+    public PatentPageFetcher(
+            ExternalPatentClient externalPatentClient,
+            CacheManager cacheManager,
+            @Value("${ip.search.prefetch.enabled:true}") boolean prefetchEnabled,
+            @Value("${ip.search.prefetch.depth:2}") int prefetchDepth,
+            @Value("${ip.search.prefetch.threads:2}") int threads,
+            @Value("${ip.search.prefetch.queue-capacity:32}") int queueCapacity,
+            @Value("${ip.search.prefetch.calls-per-minute:60}") int callsPerMinute,
+            @Value("${ip.cache.patent-search.expire-after-write:6h}") Duration cacheExpiry) {
+        this(externalPatentClient, cacheManager, prefetchEnabled, prefetchDepth, threads, queueCapacity,
+                callsPerMinute, cacheExpiry, System::nanoTime);
+    }
+
+    PatentPageFetcher(ExternalPatentClient externalPatentClient, CacheManager cacheManager,
+            boolean prefetchEnabled, int prefetchDepth, int threads, int queueCapacity,
+            int callsPerMinute, Duration cacheExpiry, LongSupplier nanoClock) {
+
+        this.externalPatentClient = externalPatentClient;
+        this.cacheManager = cacheManager;
+        this.prefetchEnabled = prefetchEnabled;
+        this.prefetchDepth = Math.max(1, prefetchDepth);
+        this.budget = new CallBudget(callsPerMinute, nanoClock);
+        this.prefetched = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(cacheExpiry).build();
+
+        // Bounded on both threads and queue; a prefetch that does not fit is dropped
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "patent-prefetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * One zero-based page of results, from the page cache or SerpAPI.
+     */
+    public List<IPSearchResultDTO> fetchPage(String query, int pageSize, int page) {
+        PatentSearchKey key = new PatentSearchKey(query, pageSize, page * pageSize);
+        if (prefetched.asMap().remove(key) != null) {
+            used.incrementAndGet();
+        }
+        return externalPatentClient.searchPatents(query, pageSize, page * pageSize);
+    }
+
+    /**
+     * Prefetches the pages after the one just served, unless it was the last.
+     *
+     * @param served number of results on the served page
+     * @param maxPages pages beyond this are never requested
+     */
+    public void prefetchAfter(String query, int pageSize, int page, int served, int maxPages) {
+        if (!prefetchEnabled || served < pageSize) {
+            return;
+        }
+
+        // Only users who page past the first page get the deeper prefetch
+        int depth = page == 0 ? 1 : prefetchDepth;
+        int lastPage = Math.min(page + depth, maxPages - 1);
+        int nextPage = page + 1;
+        if (nextPage > lastPage) {
+            return;
+        }
+
+        PatentSearchKey key = new PatentSearchKey(query, pageSize, nextPage * pageSize);
+        if (!inFlight.add(key)) {
+            return;
+        }
+        try {
+            // Prefetch calls queue as BACKGROUND work of the user who asked for this page
+            String user = SerpApiRateLimiter.currentUser();
+            executor.execute(() -> SerpApiRateLimiter.runInBackground(user,
+                    () -> prefetchPages(query, pageSize, nextPage, lastPage)));
+            scheduled.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            skippedBusy.incrementAndGet();
+        }
+    }
+
+    /**
+     * Fetches pages first..last in order, stopping at the first short page;
+     * each page that is not cached yet costs one call from the budget.
+     */
+    private void prefetchPages(String query, int pageSize, int first, int last) {
+        PatentSearchKey chainKey = new PatentSearchKey(query, pageSize, first * pageSize);
+        try {
+            for (int page = first; page <= last; page++) {
+                PatentSearchKey key = new PatentSearchKey(query, pageSize, page * pageSize);
+                List<IPSearchResultDTO> cached = cachedPage(key);
+                if (cached == null) {
+                    if (!budget.tryAcquire()) {
+                        skippedBudget.incrementAndGet();
+                        return;
+                    }
+                    cached = externalPatentClient.searchPatents(query, pageSize, page * pageSize);
+                    if (ExternalPatentClient.wasSkipped(cached)) {
+                        // No request went out (breaker open, rate limit, ...): keep the token
+                        budget.refund();
+                        skippedUnavailable.incrementAndGet();
+                        return;
+                    }
+                    if (cached == null || cached.isEmpty()) {
+                        return;
+                    }
+                    prefetched.put(key, Boolean.TRUE);
+                    fetched.incrementAndGet();
+                }
+                if (cached.size() < pageSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Prefetch of '{}' from page {} failed", query, first, e);
+        } finally {
+            inFlight.remove(chainKey);
+        }
+    }
+
+    /**
+     * True when this page of the search is in the in-memory page cache,
+     * i.e. fetchPage will not need SerpAPI for it.
+     */
+    public boolean isPageCached(String query, int pageSize, int page) {
+        return cachedPage(new PatentSearchKey(query, pageSize, page * pageSize)) != null;
+    }
+
+    /**
+     * Splits results loaded from elsewhere (e.g. the persistent cache tier)
+     * into pages and puts them in the in-memory page cache.
+     */
+    public void warmCache(String query, int pageSize, List<IPSearchResultDTO> results) {
+        Cache cache = cacheManager.getCache(CacheConfig.PATENT_SEARCH_CACHE);
+        if (cache == null) {
+            return;
+        }
+        for (int start = 0; start < results.size(); start += pageSize) {
+            List<IPSearchResultDTO> page = List.copyOf(results.subList(start, Math.min(start + pageSize, results.size())));
+            cache.put(new PatentSearchKey(query, pageSize, start), page);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", prefetchEnabled);
+        stats.put("depth", prefetchDepth);
+        stats.put("scheduled", scheduled.get());
+        stats.put("fetched", fetched.get());
+        stats.put("used", used.get());
+        stats.put("failed", failed.get());
+        stats.put("skippedBusy", skippedBusy.get());
+        stats.put("skippedBudget", skippedBudget.get());
+        stats.put("skippedUnavailable", skippedUnavailable.get());
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("budgetPerMinute", budget.getCallsPerMinute());
+        stats.put("budgetRemaining", budget.getRemaining());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<IPSearchResultDTO> cachedPage(PatentSearchKey key) {
+        Cache cache = cacheManager.getCache(CacheConfig.PATENT_SEARCH_CACHE);
+        Cache.ValueWrapper value = cache != null ? cache.get(key) : null;
+        return value != null ? (List<IPSearchResultDTO>) value.get() : null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.ip.client.PatentSearchKey;
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.ip.entity.IPAsset;
+import com.example.demo.ip.entity.SearchResultCacheEntry;
+import com.example.demo.ip.repository.IPAssetRepository;
+import com.example.demo.ip.repository.SearchResultCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Second, database-backed tier of the external search cache.
+ *
+ * Stores only the ordered application numbers of a search; the results
+ * themselves are already persisted in ip_assets by the write-behind queue.
+ * Survives restarts, so a fresh instance does not send every popular query
+ * back to SerpAPI. Entries older than the TTL are ignored on read and
+ * deleted by a periodic purge.
+ */
+@Slf4j
+@Component
+public class PersistentSearchCache {
+
+    private final SearchResultCacheRepository cacheRepository;
+    private final IPAssetRepository assetRepository;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong incomplete = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+
+    public PersistentSearchCache(
+            SearchResultCacheRepository cacheRepository,
+            IPAssetRepository assetRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${ip.cache.patent-search.persistent.enabled:true}") boolean enabled,
+            @Value("${ip.cache.patent-search.persistent.ttl:7d}") Duration ttl) {
+
+        this.cacheRepository = cacheRepository;
+        this.assetRepository = assetRepository;
+        this.enabled = enabled;
+        this.ttl = ttl;
+
+        // Own transaction: a lost insert race must not roll back the search
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return the cached results in their original order, or null on a miss,
+     *         an expired entry, or when some results are not persisted yet
+     */
+    public List<IPAsset> get(String query, int limit) {
+        if (!enabled) {
+            return null;
+        }
+
+        SearchResultCacheEntry entry = cacheRepository.findById(hash(query, limit)).orElse(null);
+        if (entry == null || entry.getFetchedAt().isBefore(LocalDateTime.now().minus(ttl))) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        List<String> numbers = Arrays.asList(entry.getApplicationNumbers().split("\n"));
+        Map<String, IPAsset> byNumber = assetRepository.findByApplicationNumberIn(new LinkedHashSet<>(numbers))
+                .stream()
+                .collect(Collectors.toMap(IPAsset::getApplicationNumber, Function.identity(), (a, b) -> a));
+
+        List<IPAsset> assets = numbers.stream().map(byNumber::get).filter(Objects::nonNull).toList();
+        if (assets.size() < numbers.size()) {
+            // Write-behind has not caught up (or assets were deleted): let SerpAPI answer
+            incomplete.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return assets;
+    }
+
+    /**
+     * Stores the application numbers of a first page fetched from SerpAPI;
+     * fetched_at is the time of that fetch. Called by the write-behind worker
+     * after the results are persisted, never on a request thread.
+     */
+    public void put(String query, int limit, List<IPSearchResultDTO> results) {
+        if (!enabled) {
+            return;
+        }
+
+        List<String> numbers = results.stream()
+                .map(IPSearchResultDTO::getApplicationNumber)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (numbers.isEmpty()) {
+            return;
+        }
+
+        SearchResultCacheEntry entry = SearchResultCacheEntry.builder()
+                .queryHash(hash(query, limit))
+                .queryText(truncate(normalize(query), 500))
+                .resultLimit(limit)
+                .applicationNumbers(String.join("\n", numbers))
+                .resultCount(numbers.size())
+                .fetchedAt(LocalDateTime.now())
+                .build();
+
+        try {
+            writeTransaction.executeWithoutResult(status -> cacheRepository.save(entry));
+            writes.incrementAndGet();
+        } catch (DataAccessException | TransactionException e) {
+            // Concurrent search stored the same query first; either row is fine
+            log.debug("Could not store search cache entry for '{}': {}", query, e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${ip.cache.patent-search.persistent.purge-interval-ms:3600000}",
+            fixedDelayString = "${ip.cache.patent-search.persistent.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+
+        Integer deleted = writeTransaction.execute(status ->
+                cacheRepository.deleteFetchedBefore(LocalDateTime.now().minus(ttl)));
+        if (deleted != null && deleted > 0) {
+            purged.addAndGet(deleted);
+            log.info("Purged {} expired search cache entries", deleted);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ttlSeconds", ttl.toSeconds());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("incomplete", incomplete.get());
+        stats.put("writes", writes.get());
+        stats.put("purged", purged.get());
+        return stats;
+    }
+
+    private static String normalize(String query) {
+        return PatentSearchKey.normalized(query, 0, 0).query();
+    }
+
+    private static String hash(String query, int limit) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((normalize(query) + "\n" + limit).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String truncate(String value, int max) {
+        return value.length() <= max ? value : value.substring(0, max);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.ip.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Canonical form of an EXTERNAL search query, used for the cache keys and
+ * the SerpAPI call alike, so that "Solar Panel", "solar  panel " and
+ * "panel solar" share one cache entry:
+ *
+ * 1. Unicode NFKC (full-width letters, ligatures, non-breaking spaces, ...)
+ * 2. case folding, except for the AND / OR / NOT operators
+ * 3. whitespace collapsed to single spaces
+ * 4. optionally, tokens sorted - only for plain bag-of-words queries; quotes,
+ *    parentheses, field prefixes, +/- and operators make order significant
+ *
+ * It also tracks how often a search would have found its key already seen
+ * with the literal (trimmed) query versus the canonical one, over the same
+ * window as the in-memory cache. Only searches reported through recordSearch
+ * count; canonicalize itself has no side effects.
+ */
+@Component
+public class QueryCanonicalizer {
+
+    private static final Set<String> OPERATORS = Set.of("AND", "OR", "NOT");
+
+    private final boolean sortTokens;
+
+    private final Cache<String, Boolean> seenLiteral;
+    private final Cache<String, Boolean> seenCanonical;
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong literalHits = new AtomicLong();
+    private final AtomicLong canonicalHits = new AtomicLong();
+    private final AtomicLong rewritten = new AtomicLong();
+
+    public QueryCanonicalizer(
+            @Value("${ip.search.canonical.sort-tokens:true}") boolean sortTokens,
+            @Value("${ip.cache.patent-search.max-entries:2000}") long windowEntries,
+            @Value("${ip.cache.patent-search.expire-after-write:6h}") Duration window) {
+
+        this.sortTokens = sortTokens;
+        this.seenLiteral = Caffeine.newBuilder().maximumSize(windowEntries).expireAfterWrite(window).build();
+        this.seenCanonical = Caffeine.newBuilder().maximumSize(windowEntries).expireAfterWrite(window).build();
+    }
+
+    public String canonicalize(String query) {
+        return canonicalForm(query);
+    }
+
+    /**
+     * Records a search for the hit-rate comparison. Call it once per search,
+     * for its first page: later pages, federated and streamed sources would
+     * count the same search again.
+     */
+    public void recordSearch(String query, String canonical) {
+        String literal = query == null ? "" : query.trim();
+
+        lookups.incrementAndGet();
+        if (seenLiteral.asMap().putIfAbsent(literal, Boolean.TRUE) != null) {
+            literalHits.incrementAndGet();
+        }
+        if (seenCanonical.asMap().putIfAbsent(canonical, Boolean.TRUE) != null) {
+            canonicalHits.incrementAndGet();
+        }
+        if (!canonical.equals(literal)) {
+            rewritten.incrementAndGet();
+        }
+    }
+
+    String canonicalForm(String query) {
+        if (query == null || query.isBlank()) {
+            return "";
+        }
+
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC);
+
+        List<String> tokens = new ArrayList<>();
+        boolean bagOfWords = true;
+        for (String token : normalized.trim().split("\\s+")) {
+            if (OPERATORS.contains(token)) {
+                bagOfWords = false;
+                tokens.add(token);
+                continue;
+            }
+            if (isOrderSensitive(token)) {
+                bagOfWords = false;
+            }
+            tokens.add(foldCase(token));
+        }
+
+        if (sortTokens && bagOfWords) {
+            Collections.sort(tokens);
+        }
+        return String.join(" ", tokens);
+    }
+
+    public Map<String, Object> getStats() {
+        long total = lookups.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sortTokens", sortTokens);
+        stats.put("lookups", total);
+        stats.put("rewritten", rewritten.get());
+        stats.put("literalKeyHitRate", total == 0 ? 0.0 : (double) literalHits.get() / total);
+        stats.put("canonicalKeyHitRate", total == 0 ? 0.0 : (double) canonicalHits.get() / total);
+        return stats;
+    }
+
+    /**
+     * Full case folding: upper-casing first maps e.g. "ß" to "SS" and final
+     * sigma to sigma, which a plain toLowerCase would keep distinct.
+     */
+    private static String foldCase(String token) {
+        return token.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isOrderSensitive(String token) {
+        if (token.startsWith("-") || token.startsWith("+")) {
+            return true;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            switch (token.charAt(i)) {
+                case '"', '(', ')', ':' -> {
+                    return true;
+                }
+                default -> {
+                }
+            }
+        }
+        return false;
+    }
+}
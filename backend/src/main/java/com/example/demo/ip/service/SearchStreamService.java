@@ -0,0 +1,296 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.ip.client.SerpApiRateLimiter;
+import com.example.demo.ip.client.TrademarkClient;
+import com.example.demo.ip.dto.FederatedSearchResponse.Source;
+import com.example.demo.ip.dto.FederatedSearchResponse.SourceReport;
+import com.example.demo.ip.dto.FederatedSearchResponse.Status;
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.ip.dto.SearchBatch;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming search: the same sources as {@link FederatedSearchService}, but
+ * each batch is handed to a {@link Sink} as soon as it arrives: local hits
+ * first, then trademarks and SerpAPI patents page by page.
+ *
+ * All sources start at once; external batches only wait (up to
+ * localFirstWait) for the local hits to go out first. Cancelling the stream,
+ * or a send failing because the client has gone, interrupts whatever is still
+ * fetching and stops further pages.
+ */
+@Service
+@Slf4j
+public class SearchStreamService {
+
+    /**
+     * Receives a stream's events, one at a time. A send that throws cancels
+     * the stream.
+     */
+    public interface Sink {
+
+        void batch(SearchBatch batch) throws IOException;
+
+        /**
+         * Last event: how each source fared, in {@link Source} order.
+         */
+        void done(List<SourceReport> sources) throws IOException;
+    }
+
+    private final IPSearchService ipSearchService;
+    private final TrademarkClient trademarkClient;
+    private final com.example.demo.monitoring.MonitoringService monitoringService;
+    private final int maxPatentPages;
+    private final long localFirstWaitNanos;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public SearchStreamService(
+            IPSearchService ipSearchService,
+            TrademarkClient trademarkClient,
+            com.example.demo.monitoring.MonitoringService monitoringService,
+            @Value("${ip.search.stream.max-patent-pages:3}") int maxPatentPages,
+            @Value("${ip.search.stream.local-first-wait:2s}") Duration localFirstWait,
+            @Value("${ip.search.stream.timeout:60s}") Duration timeout,
+            @Value("${ip.search.stream.threads:12}") int threads) {
+
+        this.ipSearchService = ipSearchService;
+        this.trademarkClient = trademarkClient;
+        this.monitoringService = monitoringService;
+        this.maxPatentPages = Math.max(1, maxPatentPages);
+        this.localFirstWaitNanos = localFirstWait.toNanos();
+        this.timeout = timeout;
+
+        // No queue: a source that finds no free worker is reported REJECTED
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * How long a client may keep a stream open.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Starts streaming the results for query into sink and returns at once.
+     */
+    public Stream start(String query, Sink sink) {
+
+        monitoringService.recordSearch();
+
+        Stream stream = new Stream(query == null ? "" : query.trim(), sink);
+        if (stream.query.isEmpty()) {
+            stream.send(() -> sink.done(List.of()));
+            return stream;
+        }
+
+        stream.launch();
+        return stream;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private interface Send {
+        void run() throws IOException;
+    }
+
+    private interface SourceSearch {
+        int run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * A running streamed search.
+     */
+    public final class Stream {
+
+        private final String query;
+        private final Sink sink;
+        // Captured on the request thread: worker threads have no request of their own
+        private final String user = SerpApiRateLimiter.currentUser();
+        private final long startNanos = System.nanoTime();
+
+        private final Set<String> seen = ConcurrentHashMap.newKeySet();
+        private final CountDownLatch localSent = new CountDownLatch(1);
+        private final Map<Source, SourceReport> reports = new EnumMap<>(Source.class);
+        private final List<Future<?>> futures = new CopyOnWriteArrayList<>();
+        private final AtomicInteger running = new AtomicInteger(Source.values().length);
+        private volatile boolean cancelled;
+
+        private Stream(String query, Sink sink) {
+            this.query = query;
+            this.sink = sink;
+        }
+
+        /**
+         * Stops the stream: nothing more is sent, and sources still fetching
+         * are interrupted.
+         */
+        public void cancel() {
+            cancelled = true;
+            futures.forEach(future -> future.cancel(true));
+            localSent.countDown();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void launch() {
+            run(Source.LOCAL, () -> emit(Source.LOCAL, 0, ipSearchService.searchLocalSource(query)));
+            run(Source.TRADEMARKS, () -> emit(Source.TRADEMARKS, 0,
+                    trademarkClient.searchTrademarks(query, FederatedSearchService.TRADEMARK_LIMIT)));
+            run(Source.PATENTS, this::streamPatents);
+        }
+
+        private int streamPatents() throws IOException, InterruptedException {
+            int count = 0;
+            for (int page = 0; page < maxPatentPages && !cancelled; page++) {
+                int current = page;
+                List<IPSearchResultDTO> results = SerpApiRateLimiter.onBehalfOf(user,
+                        () -> ipSearchService.searchPatentSource(query, current));
+                count += emit(Source.PATENTS, page, results);
+                if (results.size() < IPSearchService.PAGE_SIZE) {
+                    break;
+                }
+            }
+            return count;
+        }
+
+        private void run(Source source, SourceSearch search) {
+            Runnable task = () -> {
+                Status status = Status.OK;
+                int count = 0;
+                try {
+                    count = search.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    status = Status.FAILED;
+                } catch (Exception e) {
+                    if (!cancelled) {
+                        log.warn("Streamed source {} failed for '{}': {}", source, query, e.toString());
+                    }
+                    status = Status.FAILED;
+                } finally {
+                    finish(source, status, count);
+                }
+            };
+
+            // The client may leave while launch() is still submitting sources
+            if (cancelled) {
+                finish(source, Status.FAILED, 0);
+                return;
+            }
+            try {
+                Future<?> future = executor.submit(task);
+                futures.add(future);
+                // cancel() may have run between the check and the add, missing this future
+                if (cancelled) {
+                    future.cancel(true);
+                }
+            } catch (RejectedExecutionException e) {
+                log.warn("No worker free for streamed source {}", source);
+                finish(source, Status.REJECTED, 0);
+            }
+        }
+
+        /**
+         * Sends the results no earlier batch had; external sources first wait
+         * for the local hits.
+         *
+         * @return the number of results the source returned
+         */
+        private int emit(Source source, int page, List<IPSearchResultDTO> results)
+                throws IOException, InterruptedException {
+
+            if (source != Source.LOCAL) {
+                long waitNanos = localFirstWaitNanos - (System.nanoTime() - startNanos);
+                localSent.await(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+            }
+
+            List<IPSearchResultDTO> fresh = results.stream()
+                    .filter(result -> {
+                        String key = FederatedSearchService.applicationKey(result.getApplicationNumber());
+                        return key == null || seen.add(key);
+                    })
+                    .toList();
+
+            if (!fresh.isEmpty() && !send(() -> sink.batch(new SearchBatch(source, page, fresh)))) {
+                throw new IOException("Stream closed");
+            }
+            return results.size();
+        }
+
+        private void finish(Source source, Status status, int count) {
+            List<SourceReport> done = null;
+            synchronized (reports) {
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                reports.put(source, new SourceReport(source, status, latencyMs, count));
+                if (running.decrementAndGet() == 0) {
+                    done = new ArrayList<>(reports.values());
+                }
+            }
+            if (source == Source.LOCAL) {
+                localSent.countDown();
+            }
+            if (done != null) {
+                List<SourceReport> sources = done;
+                send(() -> sink.done(sources));
+            }
+        }
+
+        /**
+         * Sends one event unless the stream is cancelled; a failed send
+         * cancels it.
+         */
+        private synchronized boolean send(Send send) {
+            if (cancelled) {
+                return false;
+            }
+            try {
+                send.run();
+                return true;
+            } catch (IOException | RuntimeException e) {
+                log.debug("Search stream for '{}' closed: {}", query, e.toString());
+                cancel();
+                return false;
+            }
+        }
+    }
+}
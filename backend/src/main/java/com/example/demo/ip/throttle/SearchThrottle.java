@@ -0,0 +1,194 @@
+package com.example.demo.ip.throttle;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Inbound limits for searches, per principal ("user:&lt;email&gt;" or
+ * "ip:&lt;address&gt;"): requests per sliding minute, and searches running at
+ * once. Anonymous principals get a lower rate.
+ *
+ * State per principal is a few atomics. Principals idle for longer than
+ * idleAfter are evicted periodically, and beyond maxKeys new principals share
+ * one overflow entry, so memory stays bounded whatever the key space.
+ */
+@Component
+public class SearchThrottle {
+
+    static final String OVERFLOW_KEY = "overflow";
+
+    public enum Rejection { RATE, CONCURRENCY }
+
+    /**
+     * Outcome of {@link #tryAcquire}; an admitted search holds on to it until
+     * {@link #release}.
+     */
+    public static final class Decision {
+
+        private final Rejection rejection;
+        private final long retryAfterSeconds;
+        private final Principal principal;
+
+        private Decision(Rejection rejection, long retryAfterSeconds, Principal principal) {
+            this.rejection = rejection;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.principal = principal;
+        }
+
+        public boolean admitted() {
+            return rejection == null;
+        }
+
+        public Rejection rejection() {
+            return rejection;
+        }
+
+        public long retryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private static final class Principal {
+        private final SlidingWindowCounter requests;
+        private final AtomicInteger running = new AtomicInteger();
+        private volatile long lastSeenMillis;
+
+        private Principal(long windowMillis, long nowMillis) {
+            this.requests = new SlidingWindowCounter(windowMillis);
+            this.lastSeenMillis = nowMillis;
+        }
+    }
+
+    private final long windowMillis;
+    private final int userRequestsPerWindow;
+    private final int anonymousRequestsPerWindow;
+    private final int maxConcurrent;
+    private final long idleAfterMillis;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, Principal> principals = new ConcurrentHashMap<>();
+    private volatile long lastFullSweepMillis;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejectedRate = new AtomicLong();
+    private final AtomicLong rejectedConcurrency = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    @Autowired
+    public SearchThrottle(
+            @Value("${ip.search.throttle.user-requests-per-minute:60}") int userRequestsPerMinute,
+            @Value("${ip.search.throttle.anonymous-requests-per-minute:20}") int anonymousRequestsPerMinute,
+            @Value("${ip.search.throttle.max-concurrent:2}") int maxConcurrent,
+            @Value("${ip.search.throttle.idle-after:10m}") Duration idleAfter,
+            @Value("${ip.search.throttle.max-keys:10000}") int maxKeys) {
+        this(Duration.ofMinutes(1), userRequestsPerMinute, anonymousRequestsPerMinute, maxConcurrent,
+                idleAfter, maxKeys, System::currentTimeMillis);
+    }
+
+    SearchThrottle(Duration window, int userRequestsPerWindow, int anonymousRequestsPerWindow,
+            int maxConcurrent, Duration idleAfter, int maxKeys, LongSupplier clock) {
+        this.windowMillis = window.toMillis();
+        this.userRequestsPerWindow = userRequestsPerWindow;
+        this.anonymousRequestsPerWindow = anonymousRequestsPerWindow;
+        this.maxConcurrent = maxConcurrent;
+        this.idleAfterMillis = idleAfter.toMillis();
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * Admits one search for the principal, or says why not and when to retry.
+     * An admitted search must be ended with {@link #release}.
+     */
+    public Decision tryAcquire(String key, boolean authenticated) {
+        long now = clock.getAsLong();
+        Principal principal = principal(key, now);
+        principal.lastSeenMillis = now;
+
+        int running = principal.running.incrementAndGet();
+        if (running > maxConcurrent) {
+            principal.running.decrementAndGet();
+            rejectedConcurrency.incrementAndGet();
+            return new Decision(Rejection.CONCURRENCY, 1, null);
+        }
+
+        long limit = authenticated ? userRequestsPerWindow : anonymousRequestsPerWindow;
+        long retryAfterMillis = principal.requests.tryAcquire(limit, now);
+        if (retryAfterMillis > 0) {
+            principal.running.decrementAndGet();
+            rejectedRate.incrementAndGet();
+            return new Decision(Rejection.RATE, Math.max(1, (retryAfterMillis + 999) / 1000), null);
+        }
+
+        admitted.incrementAndGet();
+        return new Decision(null, 0, principal);
+    }
+
+    public void release(Decision decision) {
+        if (decision.principal != null) {
+            decision.principal.running.decrementAndGet();
+        }
+    }
+
+    /**
+     * Drops principals with no search running that were last seen more than
+     * idleAfter ago.
+     */
+    @Scheduled(fixedDelayString = "${ip.search.throttle.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = clock.getAsLong() - idleAfterMillis;
+        principals.forEach((key, principal) -> {
+            if (principal.lastSeenMillis < cutoff && principal.running.get() == 0
+                    && principals.remove(key, principal)) {
+                evicted.incrementAndGet();
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("userRequestsPerMinute", userRequestsPerWindow);
+        stats.put("anonymousRequestsPerMinute", anonymousRequestsPerWindow);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("trackedPrincipals", principals.size());
+        stats.put("maxPrincipals", maxKeys);
+        stats.put("admitted", admitted.get());
+        stats.put("rejectedRate", rejectedRate.get());
+        stats.put("rejectedConcurrency", rejectedConcurrency.get());
+        stats.put("overflowed", overflowed.get());
+        stats.put("evicted", evicted.get());
+        return stats;
+    }
+
+    private Principal principal(String key, long now) {
+        Principal principal = principals.get(key);
+        if (principal != null) {
+            return principal;
+        }
+        if (principals.size() >= maxKeys) {
+            // At most one extra sweep per second, however many newcomers arrive
+            if (now - lastFullSweepMillis >= 1000) {
+                lastFullSweepMillis = now;
+                evictIdle();
+            }
+            if (principals.size() >= maxKeys) {
+                // Full of active principals: newcomers share one entry (and its limits)
+                overflowed.incrementAndGet();
+                return principals.computeIfAbsent(OVERFLOW_KEY, k -> new Principal(windowMillis, now));
+            }
+        }
+        return principals.computeIfAbsent(key, k -> new Principal(windowMillis, now));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.demo.ip.throttle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies the {@link SearchThrottle} to POST /api/ip/search and
+ * /api/ip/search/federated and to GET /api/ip/search/stream: over the limit,
+ * the search is answered 429 with a Retry-After header before it can reach
+ * SerpAPI or the database. A stream holds its concurrency slot until the
+ * async response completes, not just until the handler returns.
+ *
+ * Runs after the security chain, so a search with a valid token is limited
+ * per user, anything else per client address.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchThrottleFilter extends OncePerRequestFilter {
+
+    static final String SEARCH_PATH = "/api/ip/search";
+    static final String FEDERATED_SEARCH_PATH = "/api/ip/search/federated";
+    static final String STREAM_PATH = "/api/ip/search/stream";
+
+    private final SearchThrottle throttle;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * "user:&lt;name&gt;" for an authenticated caller, else "ip:&lt;remote address&gt;"
+     * ("anonymous" outside a request).
+     */
+    public static String principalKey(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (isUser(auth)) {
+            return "user:" + auth.getName();
+        }
+        return request != null ? "ip:" + request.getRemoteAddr() : "anonymous";
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        boolean search = "POST".equalsIgnoreCase(request.getMethod())
+                && (SEARCH_PATH.equals(path) || FEDERATED_SEARCH_PATH.equals(path));
+        boolean stream = "GET".equalsIgnoreCase(request.getMethod()) && STREAM_PATH.equals(path);
+        return !(search || stream);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String key = principalKey(request);
+        SearchThrottle.Decision decision = throttle.tryAcquire(key, isUser(SecurityContextHolder.getContext().getAuthentication()));
+
+        if (!decision.admitted()) {
+            reject(request, response, decision);
+            return;
+        }
+
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(decision));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                throttle.release(decision);
+            }
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, SearchThrottle.Decision decision)
+            throws IOException {
+
+        String message = decision.rejection() == SearchThrottle.Rejection.CONCURRENCY
+                ? "Too many searches running at once; wait for one to finish"
+                : "Search rate limit exceeded; retry in " + decision.retryAfterSeconds() + "s";
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", Instant.now().toString());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        body.put("message", message);
+        body.put("path", request.getRequestURI());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * Releases an async search's slot once, however its response ends.
+     */
+    private final class ReleaseOnCompletion implements AsyncListener {
+
+        private final SearchThrottle.Decision decision;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleaseOnCompletion(SearchThrottle.Decision decision) {
+            this.decision = decision;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // SseEmitter starts async processing only once
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                throttle.release(decision);
+            }
+        }
+    }
+
+    private static boolean isUser(Authentication auth) {
+        return auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.ip.throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free sliding-window request counter.
+ *
+ * Approximates the count over the last window from two fixed windows: the
+ * current one, plus the previous one weighted by how much of it still lies
+ * inside the sliding window. Window index and both counts are packed into a
+ * single long (32 + 16 + 16 bits) and updated with compare-and-set, so a
+ * request costs one CAS and never blocks.
+ */
+class SlidingWindowCounter {
+
+    private static final long MAX_COUNT = 0xFFFF;
+
+    private final long windowMillis;
+    private final AtomicLong state = new AtomicLong();
+
+    SlidingWindowCounter(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Counts one request if the window has room for it.
+     *
+     * @return 0 if the request was counted, otherwise the milliseconds until
+     *         it would fit
+     */
+    long tryAcquire(long limit, long nowMillis) {
+        long window = nowMillis / windowMillis;
+        double elapsed = (nowMillis % windowMillis) / (double) windowMillis;
+
+        while (true) {
+            long current = state.get();
+            long index = current >>> 32;
+            long previous = (current >>> 16) & MAX_COUNT;
+            long count = current & MAX_COUNT;
+
+            if (index != window) {
+                previous = index == window - 1 ? count : 0;
+                count = 0;
+            }
+
+            if (previous * (1 - elapsed) + count + 1 > limit) {
+                return retryAfterMillis(limit, previous, count, elapsed);
+            }
+
+            long next = (window << 32) | (previous << 16) | Math.min(count + 1, MAX_COUNT);
+            if (state.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Time until the weighted count has dropped enough for one more request.
+     */
+    private long retryAfterMillis(long limit, long previous, long count, double elapsed) {
+        if (count + 1 <= limit && previous > 0) {
+            // Fits once enough of the previous window has slid out
+            double fraction = 1 - (limit - count - 1) / (double) previous;
+            return Math.max(1, (long) Math.ceil((fraction - elapsed) * windowMillis));
+        }
+        // Wait for the next window, and for enough of this one to slide out
+        double fraction = count == 0 ? 0 : Math.max(0, 1 - (limit - 1) / (double) count);
+        return Math.max(1, (long) Math.ceil((1 - elapsed + fraction) * windowMillis));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Times the CONTROLLER phase: from just before the handler method until the
+ * response is rendered. For async requests (SSE) that is until the handler
+ * returns.
+ */
+public class ControllerTimingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = ControllerTimingInterceptor.class.getName() + ".start";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, RequestTiming.start());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        stop(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        stop(request);
+    }
+
+    private static void stop(HttpServletRequest request) {
+        if (request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            request.removeAttribute(START_ATTRIBUTE);
+            RequestTiming.stop(RequestTiming.Phase.CONTROLLER, start);
+        }
+    }
+}
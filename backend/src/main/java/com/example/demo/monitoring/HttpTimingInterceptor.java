@@ -0,0 +1,26 @@
+package com.example.demo.monitoring;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Times the EXTERNAL_HTTP phase of outbound RestTemplate calls, up to the
+ * response headers (bodies are streamed by the caller).
+ */
+public class HttpTimingInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = RequestTiming.start();
+        try {
+            return execution.execute(request, body);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.EXTERNAL_HTTP, start);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.demo.monitoring;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency distribution over sliding windows of whole minutes, for
+ * percentiles (p50, p95, p99) and the maximum.
+ *
+ * Values (microseconds) go into HdrHistogram-style log-linear buckets: exact
+ * below 32us, then 16 buckets per power of two, so a reported percentile is
+ * within about 6% of the true value (never below it) and a bucket array
+ * covers up to 71 minutes. Each minute has its own slot in a ring, swapped in
+ * with one compare-and-set like {@link TrafficHistory}. Writers are spread
+ * over a few stripes of counters, so recording allocates nothing beyond one
+ * slot a minute and concurrent requests rarely share a counter.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Summary of one window; times in milliseconds, zero when the window is
+     * empty.
+     */
+    public record Snapshot(long count, double meanMs, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+    }
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final long MAX_VALUE = (1L << 32) - 1;
+    static final int BUCKETS = SUB_BUCKETS + (32 - SUB_BUCKET_BITS) * HALF;
+
+    // The longest window, plus the minute in progress
+    private static final int MAX_WINDOW_MINUTES = 15;
+    private static final int SLOTS = MAX_WINDOW_MINUTES + 1;
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private static final int STRIPES =
+            Integer.highestOneBit(Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final class Slot {
+        private final long minute;
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(STRIPES * BUCKETS);
+        private final LongAdder sumMicros = new LongAdder();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        private Slot(long minute) {
+            this.minute = minute;
+        }
+    }
+
+    private final LongSupplier clock;
+    private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(SLOTS);
+
+    public LatencyHistogram() {
+        this(System::currentTimeMillis);
+    }
+
+    LatencyHistogram(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public void record(long micros) {
+        long value = Math.min(Math.max(0, micros), MAX_VALUE);
+        Slot slot = slot(clock.getAsLong() / MINUTE_MILLIS);
+        if (slot == null) {
+            return;
+        }
+
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        slot.counts.incrementAndGet(stripe * BUCKETS + bucketOf(value));
+        slot.sumMicros.add(value);
+
+        long max = slot.maxMicros.get();
+        while (value > max && !slot.maxMicros.compareAndSet(max, value)) {
+            max = slot.maxMicros.get();
+        }
+    }
+
+    /**
+     * The last windowMinutes whole minutes plus the one in progress.
+     */
+    public Snapshot snapshot(int windowMinutes) {
+        long current = clock.getAsLong() / MINUTE_MILLIS;
+        long oldest = current - Math.min(windowMinutes, MAX_WINDOW_MINUTES);
+
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        long sum = 0;
+        long max = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            Slot slot = slots.get(i);
+            if (slot == null || slot.minute < oldest || slot.minute > current) {
+                continue;
+            }
+            for (int j = 0; j < STRIPES * BUCKETS; j++) {
+                int count = slot.counts.get(j);
+                counts[j % BUCKETS] += count;
+                total += count;
+            }
+            sum += slot.sumMicros.sum();
+            max = Math.max(max, slot.maxMicros.get());
+        }
+
+        if (total == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0);
+        }
+        return new Snapshot(total, toMillis(sum / (double) total),
+                toMillis(valueAt(counts, total, 0.50, max)),
+                toMillis(valueAt(counts, total, 0.95, max)),
+                toMillis(valueAt(counts, total, 0.99, max)),
+                toMillis(max));
+    }
+
+    /**
+     * Highest value in the bucket holding the given quantile, capped at the
+     * recorded maximum.
+     */
+    private static long valueAt(long[] counts, long total, double quantile, long max) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        long top = value >>> shift;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (top - HALF);
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int offset = bucket - SUB_BUCKETS;
+        int shift = offset / HALF + 1;
+        long top = offset % HALF + HALF;
+        return ((top + 1) << shift) - 1;
+    }
+
+    private static double toMillis(double micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private Slot slot(long minute) {
+        int index = (int) Math.floorMod(minute, (long) SLOTS);
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot != null && slot.minute == minute) {
+                return slot;
+            }
+            if (slot != null && slot.minute > minute) {
+                return null;
+            }
+            Slot fresh = new Slot(minute);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                return fresh;
+            }
+        }
+    }
+}
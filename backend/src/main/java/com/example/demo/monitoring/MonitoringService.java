@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -17,97 +18,114 @@ import java.util.Locale;
 @lombok.RequiredArgsConstructor
 public class MonitoringService {
 
+    private static final java.util.regex.Pattern NUMERIC_SEGMENT = java.util.regex.Pattern.compile("/\\d+");
+    private static final DateTimeFormatter TRAFFIC_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss").withZone(java.time.ZoneId.systemDefault());
+
+    private static final int MAX_ENDPOINTS = 100;
+    private static final String OTHER_ENDPOINTS = "(other)";
+
     // In-memory store for stats (resets on restart)
     private final Map<String, SystemHealthData.EndpointMetric> endpointStats = new ConcurrentHashMap<>();
-    private final AtomicLong totalRequests = new AtomicLong(0);
-    private final AtomicLong totalErrors = new AtomicLong(0);
-    private final AtomicLong totalTimeMs = new AtomicLong(0);
+    // Counters written on every request are LongAdders, so concurrent requests don't contend on them
+    private final LongAdder totalRequests = new LongAdder();
+    private final LongAdder totalErrors = new LongAdder();
+    private final LongAdder totalTimeMicros = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
     private final long startTime = System.currentTimeMillis();
 
-    // Traffic data storage for charts
-    private final List<SystemHealthData.TrafficDataPoint> trafficHistory = new ArrayList<>();
-    private final AtomicLong currentUsers = new AtomicLong(0);
-    private final AtomicLong activeConnections = new AtomicLong(0);
+    // Traffic data for charts: 60 buckets of 10 seconds (10 minutes of data)
+    private final TrafficHistory trafficHistory = new TrafficHistory(10_000, 60, System::currentTimeMillis);
+    private final LongAdder currentUsers = new LongAdder();
+    private final LongAdder activeConnections = new LongAdder();
+
+    public void recordRequest(String path, RequestTiming timing, boolean isError) {
+        recordRequest(path, timing.elapsedNanos(), timing, isError);
+    }
+
+    public void recordRequest(String path, long durationNanos, boolean isError) {
+        recordRequest(path, durationNanos, null, isError);
+    }
 
-    public void recordRequest(String path, long timeTaken, boolean isError) {
+    private void recordRequest(String path, long durationNanos, RequestTiming timing, boolean isError) {
         // Global stats
-        totalRequests.incrementAndGet();
-        totalTimeMs.addAndGet(timeTaken);
-        if (isError) totalErrors.incrementAndGet();
+        totalRequests.increment();
+        totalTimeMicros.add(durationNanos / 1000);
+        latency.record(durationNanos / 1000);
+        if (isError) totalErrors.increment();
 
         // Update real-time counters
-        currentUsers.incrementAndGet();
-        activeConnections.incrementAndGet();
+        currentUsers.increment();
+        activeConnections.increment();
 
-        // Record traffic data point every minute
-        recordTrafficDataPoint(isError);
+        // Count the request in its 10-second traffic bucket
+        trafficHistory.record(isError);
 
         // Per endpoint stats (simplify path to avoid high cardinality, e.g. remove IDs)
         String simplifiedPath = simplifyPath(path);
-        endpointStats.computeIfAbsent(simplifiedPath, k -> {
-            SystemHealthData.EndpointMetric m = new SystemHealthData.EndpointMetric();
-            m.setPath(k);
-            m.setStatus("healthy");
-            return m;
-        }).record(timeTaken, isError);
-    }
-
-    private void recordTrafficDataPoint(boolean isError) {
-        // Only record every 10 seconds to avoid too much data
-        if (trafficHistory.size() == 0 || System.currentTimeMillis() - getLastTrafficTimestamp() > 10000) {
-            SystemHealthData.TrafficDataPoint point = new SystemHealthData.TrafficDataPoint();
-            point.setTime(LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")));
-            point.setRequests(totalRequests.get());
-            point.setUsers(currentUsers.get());
-            point.setErrors(isError ? totalErrors.get() : 0);
-
-            synchronized (trafficHistory) {
-                trafficHistory.add(point);
-                // Keep only last 60 points (10 minutes of data)
-                if (trafficHistory.size() > 60) {
-                    trafficHistory.remove(0);
-                }
+        SystemHealthData.EndpointMetric metric = endpointStats.get(simplifiedPath);
+        if (metric == null) {
+            // Each endpoint carries latency histograms, so unexpected paths share one entry beyond the cap
+            if (endpointStats.size() >= MAX_ENDPOINTS) {
+                simplifiedPath = OTHER_ENDPOINTS;
             }
+            metric = endpointStats.computeIfAbsent(simplifiedPath, k -> {
+                SystemHealthData.EndpointMetric m = new SystemHealthData.EndpointMetric();
+                m.setPath(k);
+                m.setTimers(platformMetrics.endpointTimers(k));
+                return m;
+            });
+        }
+        metric.record(durationNanos, isError);
+        metric.getTimers().record(durationNanos, isError);
+        if (timing != null) {
+            metric.recordPhases(timing);
+            platformMetrics.recordPhases(timing);
         }
     }
 
-    private long getLastTrafficTimestamp() {
-        // Simplified - in real implementation, store timestamp with each point
-        return System.currentTimeMillis() - 10000;
+    /**
+     * Counts a request's HTTP body bytes for the bandwidth figures.
+     */
+    public void recordTransfer(long receivedBytes, long sentBytes) {
+        systemMetricsSampler.recordTransfer(receivedBytes, sentBytes);
+        platformMetrics.recordTransfer(receivedBytes, sentBytes);
     }
 
     public TrafficData getTrafficData() {
         TrafficData data = new TrafficData();
 
         // Generate traffic data for charts (last 60 points)
-        synchronized (trafficHistory) {
-            List<TrafficData.TrafficDataPoint> trafficPoints = new ArrayList<>();
-            for (SystemHealthData.TrafficDataPoint point : trafficHistory) {
-                TrafficData.TrafficDataPoint tp = new TrafficData.TrafficDataPoint();
-                tp.setTime(point.getTime());
-                tp.setRequests(point.getRequests());
-                tp.setUsers(point.getUsers());
-                tp.setErrors(point.getErrors());
-                trafficPoints.add(tp);
-            }
-            data.setTrafficData(trafficPoints);
+        List<TrafficData.TrafficDataPoint> trafficPoints = new ArrayList<>();
+        for (TrafficHistory.Point point : trafficHistory.snapshot()) {
+            TrafficData.TrafficDataPoint tp = new TrafficData.TrafficDataPoint();
+            tp.setTime(formatTrafficTime(point));
+            tp.setRequests(point.requests());
+            tp.setUsers(point.requests());
+            tp.setErrors(point.errors());
+            trafficPoints.add(tp);
         }
+        data.setTrafficData(trafficPoints);
 
         // Real-time stats
         TrafficData.RealtimeStats stats = new TrafficData.RealtimeStats();
-        stats.setCurrentUsers(currentUsers.get());
+        stats.setCurrentUsers(currentUsers.sum());
         stats.setRequestsPerSecond(calculateRequestsPerSecond());
-        stats.setActiveConnections(activeConnections.get());
-        stats.setBandwidth(calculateBandwidth());
+        stats.setActiveConnections(activeConnections.sum());
         data.setRealtimeStats(stats);
 
-        // Server load
+        // Server load, from the latest system sample (zeros until the first one)
         TrafficData.ServerLoad load = new TrafficData.ServerLoad();
-        load.setCpuUsage(getCpuUsage());
-        load.setMemoryUsage(getMemoryUsage());
-        load.setDiskIo(getDiskIo());
-        load.setNetworkIo(getNetworkIo());
+        SystemMetricsSampler.Sample sample = systemMetricsSampler.getLatest();
+        if (sample != null) {
+            stats.setBandwidth(toMegabytes(sample.httpReceivedBytesPerSec() + sample.httpSentBytesPerSec()));
+            load.setCpuUsage(sample.processCpuPercent());
+            load.setMemoryUsage(sample.heapUsedPercent());
+            load.setDiskIo(toMegabytes(sample.diskReadBytesPerSec() + sample.diskWriteBytesPerSec()));
+            load.setNetworkIo(toMegabytes(sample.networkReceivedBytesPerSec() + sample.networkSentBytesPerSec()));
+        }
         data.setServerLoad(load);
+        data.setSystemSamples(systemMetricsSampler.getSamples());
 
         return data;
     }
@@ -116,32 +134,15 @@ public class MonitoringService {
         // Simple calculation based on recent activity
         long uptimeMinutes = (System.currentTimeMillis() - startTime) / 60000;
         if (uptimeMinutes < 1) uptimeMinutes = 1;
-        return totalRequests.get() / uptimeMinutes / 60;
-    }
-
-    private long calculateBandwidth() {
-        // Mock bandwidth calculation (MB/s)
-        return (long) (Math.random() * 50 + 20);
-    }
-
-    private double getCpuUsage() {
-        // Mock CPU usage
-        return Math.random() * 30 + 40; // 40-70%
-    }
-
-    private double getMemoryUsage() {
-        // Mock memory usage
-        return Math.random() * 20 + 60; // 60-80%
-    }
-
-    private double getDiskIo() {
-        // Mock disk I/O
-        return Math.random() * 30 + 20; // 20-50%
+        return totalRequests.sum() / uptimeMinutes / 60;
     }
 
-    private double getNetworkIo() {
-        // Mock network I/O
-        return Math.random() * 40 + 50; // 50-90%
+    // Bytes per second to MB/s with two decimals; -1 (unavailable) passes through
+    private static double toMegabytes(double bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            return -1;
+        }
+        return Math.round(bytesPerSecond / (1024 * 1024) * 100) / 100.0;
     }
 
     public SystemHealthData getHealthData() {
@@ -153,10 +154,10 @@ public class MonitoringService {
         data.setUptime(String.format("%dd %dh %dm", d.toDays(), d.toHoursPart(), d.toMinutesPart()));
         
         // Global Metrics
-        long reqs = totalRequests.get();
+        long reqs = totalRequests.sum();
         if (reqs > 0) {
-            data.setResponseTimeMs((double) totalTimeMs.get() / reqs);
-            data.setErrorRatePercent(((double) totalErrors.get() / reqs) * 100.0);
+            data.setResponseTimeMs(totalTimeMicros.sum() / 1000.0 / reqs);
+            data.setErrorRatePercent(((double) totalErrors.sum() / reqs) * 100.0);
         }
         data.setTotalRequests(reqs);
         
@@ -167,12 +168,28 @@ public class MonitoringService {
         
         // Endpoints
         data.setEndpoints(endpointStats);
+        data.setLatency(SystemHealthData.latencyWindows(latency));
         
         return data;
     }
     
     private final com.example.demo.repository.UserRepository userRepository;
     private final com.example.demo.filing.repository.PatentFilingRepository filingRepository;
+    private final org.springframework.cache.CacheManager cacheManager;
+    private final com.example.demo.ip.service.IPAssetWriteBehindQueue writeBehindQueue;
+    private final com.example.demo.ip.client.SearchRequestCoalescer searchRequestCoalescer;
+    private final com.example.demo.ip.index.LocalSearchIndex localSearchIndex;
+    private final com.example.demo.config.PooledHttpClientFactory httpClientFactory;
+    private final com.example.demo.ip.client.ExternalSearchCircuitBreaker circuitBreaker;
+    private final com.example.demo.ip.service.PersistentSearchCache persistentSearchCache;
+    private final com.example.demo.ip.service.QueryCanonicalizer queryCanonicalizer;
+    private final com.example.demo.ip.client.SearchRefreshScheduler searchRefreshScheduler;
+    private final com.example.demo.ip.service.PatentPageFetcher patentPageFetcher;
+    private final com.example.demo.ip.client.SerpApiRateLimiter serpApiRateLimiter;
+    private final com.example.demo.ip.client.SerpApiQuotaTracker serpApiQuotaTracker;
+    private final com.example.demo.ip.throttle.SearchThrottle searchThrottle;
+    private final SystemMetricsSampler systemMetricsSampler;
+    private final PlatformMetrics platformMetrics;
     
     // We maintain a simple in-memory counter for searches/views for demo purposes
     // In a real app, these would be in a dedicated analytics table.
@@ -180,8 +197,15 @@ public class MonitoringService {
     private final AtomicLong patentViews = new AtomicLong(0);
 
     // Call this from controllers when actions happen
-    public void recordSearch() { searchQueries.incrementAndGet(); }
-    public void recordPatentView() { patentViews.incrementAndGet(); }
+    public void recordSearch() {
+        searchQueries.incrementAndGet();
+        platformMetrics.recordSearch();
+    }
+
+    public void recordPatentView() {
+        patentViews.incrementAndGet();
+        platformMetrics.recordPatentView();
+    }
 
     public ActivityStatsData getActivityStats() {
         ActivityStatsData data = new ActivityStatsData();
@@ -220,9 +244,52 @@ public class MonitoringService {
         return data;
     }
 
+    // Search pipeline internals (caches, write-behind queue, coalescing etc.) for the admin dashboard
+    public Map<String, Object> getSearchPipelineStats() {
+        Map<String, Object> data = new java.util.LinkedHashMap<>();
+        data.put("inboundThrottle", searchThrottle.getStats());
+        data.put("canonicalization", queryCanonicalizer.getStats());
+        data.put("caches", getCacheStats());
+        data.put("staleRefresh", searchRefreshScheduler.getStats());
+        data.put("prefetch", patentPageFetcher.getStats());
+        data.put("persistentCache", persistentSearchCache.getStats());
+        data.put("writeBehind", writeBehindQueue.getStats());
+        data.put("coalescing", searchRequestCoalescer.getStats());
+        data.put("localIndex", localSearchIndex.getStats());
+        data.put("httpClients", httpClientFactory.getStats());
+        data.put("circuitBreaker", circuitBreaker.getStats());
+        data.put("serpApiRateLimit", serpApiRateLimiter.getStats());
+        data.put("serpApiQuota", serpApiQuotaTracker.getStats());
+        return data;
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> caches = new java.util.LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(name);
+            if (cache == null
+                    || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+                continue;
+            }
+
+            com.github.benmanes.caffeine.cache.stats.CacheStats stats = nativeCache.stats();
+            Map<String, Object> item = new java.util.LinkedHashMap<>();
+            item.put("size", nativeCache.estimatedSize());
+            item.put("hits", stats.hitCount());
+            item.put("misses", stats.missCount());
+            item.put("hitRate", stats.hitRate());
+            item.put("evictions", stats.evictionCount());
+            item.put("evictionWeight", stats.evictionWeight());
+            item.put("refreshes", stats.loadSuccessCount());
+            item.put("refreshFailures", stats.loadFailureCount());
+            caches.put(name, item);
+        }
+        return caches;
+    }
+
     private String simplifyPath(String path) {
         // Replace numbers with {id} to group similar endpoints
-        return path.replaceAll("/\\d+", "/{id}");
+        return NUMERIC_SEGMENT.matcher(path).replaceAll("/{id}");
     }
     
     public PatentTrendsData getPatentTrends() {
@@ -328,19 +395,22 @@ public class MonitoringService {
     // Chart data generation methods for frontend
     public List<Map<String, Object>> getTrafficChartData() {
         List<Map<String, Object>> data = new ArrayList<>();
-        synchronized (trafficHistory) {
-            for (SystemHealthData.TrafficDataPoint point : trafficHistory) {
-                Map<String, Object> item = new java.util.HashMap<>();
-                item.put("time", point.getTime());
-                item.put("requests", point.getRequests());
-                item.put("users", point.getUsers());
-                item.put("errors", point.getErrors());
-                data.add(item);
-            }
+        for (TrafficHistory.Point point : trafficHistory.snapshot()) {
+            Map<String, Object> item = new java.util.HashMap<>();
+            item.put("time", formatTrafficTime(point));
+            item.put("requests", point.requests());
+            // Every request counts as a user visit, as currentUsers always has
+            item.put("users", point.requests());
+            item.put("errors", point.errors());
+            data.add(item);
         }
         return data;
     }
 
+    private static String formatTrafficTime(TrafficHistory.Point point) {
+        return TRAFFIC_TIME_FORMAT.format(java.time.Instant.ofEpochMilli(point.startMillis()));
+    }
+
     public List<Map<String, Object>> getResponsePerformanceData() {
         List<Map<String, Object>> data = new ArrayList<>();
         for (SystemHealthData.EndpointMetric metric : endpointStats.values()) {
@@ -348,6 +418,15 @@ public class MonitoringService {
             item.put("endpoint", metric.getPath());
             item.put("avgResponse", metric.getAverageResponseTime());
             item.put("requests", metric.getRequestCount());
+            // Percentiles over the last 5 minutes; all windows under "latency"
+            Map<String, LatencyHistogram.Snapshot> windows = metric.getLatency();
+            LatencyHistogram.Snapshot recent = windows.get("5m");
+            item.put("p50", recent.p50Ms());
+            item.put("p95", recent.p95Ms());
+            item.put("p99", recent.p99Ms());
+            item.put("max", recent.maxMs());
+            item.put("latency", windows);
+            item.put("phases", metric.getPhases());
             data.add(item);
         }
         return data;
@@ -0,0 +1,121 @@
+package com.example.demo.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The platform's own Micrometer meters, exported with the JVM, Hikari and
+ * cache meters Spring Boot registers at /actuator/prometheus.
+ *
+ * Request meters are tagged by the endpoint names {@link MonitoringService}
+ * already uses (IDs collapsed, at most MAX_ENDPOINTS plus "(other)"), so the
+ * number of series stays bounded whatever paths clients send.
+ */
+@Component
+public class PlatformMetrics {
+
+    /**
+     * The request timers of one endpoint; looked up once, when the endpoint
+     * is first seen.
+     */
+    public record EndpointTimers(Timer success, Timer error) {
+
+        void record(long durationNanos, boolean isError) {
+            (isError ? error : success).record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Timer[] phaseTimers = new Timer[RequestTiming.Phase.values().length];
+    private final Counter httpReceivedBytes;
+    private final Counter httpSentBytes;
+    private final Counter searches;
+    private final Counter patentViews;
+
+    public PlatformMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (RequestTiming.Phase phase : RequestTiming.Phase.values()) {
+            phaseTimers[phase.ordinal()] = Timer.builder("platform.api.phase")
+                    .description("Time /api requests spend in each phase")
+                    .tag("phase", phase.key())
+                    .register(registry);
+        }
+        this.httpReceivedBytes = Counter.builder("platform.http.received")
+                .baseUnit("bytes").description("Request body bytes of /api requests").register(registry);
+        this.httpSentBytes = Counter.builder("platform.http.sent")
+                .baseUnit("bytes").description("Response body bytes of /api requests").register(registry);
+        this.searches = Counter.builder("platform.searches").description("IP searches run").register(registry);
+        this.patentViews = Counter.builder("platform.patent.views").description("Patent detail views").register(registry);
+    }
+
+    EndpointTimers endpointTimers(String endpoint) {
+        return new EndpointTimers(requestTimer(endpoint, "success"), requestTimer(endpoint, "error"));
+    }
+
+    private Timer requestTimer(String endpoint, String outcome) {
+        // Percentile buckets let Prometheus aggregate quantiles across instances
+        return Timer.builder("platform.api.requests")
+                .description("Latency of /api requests")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+
+    void recordPhases(RequestTiming timing) {
+        for (RequestTiming.Phase phase : RequestTiming.Phase.values()) {
+            long nanos = timing.phaseNanos(phase);
+            if (nanos > 0) {
+                phaseTimers[phase.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    void recordTransfer(long receivedBytes, long sentBytes) {
+        if (receivedBytes > 0) {
+            httpReceivedBytes.increment(receivedBytes);
+        }
+        if (sentBytes > 0) {
+            httpSentBytes.increment(sentBytes);
+        }
+    }
+
+    void recordSearch() {
+        searches.increment();
+    }
+
+    void recordPatentView() {
+        patentViews.increment();
+    }
+
+    /**
+     * Times a SerpAPI call that was made; outcome is a fixed word such as
+     * "success" or "error".
+     */
+    public void recordSerpApiCall(String outcome, long durationNanos) {
+        Timer.builder("platform.serpapi.calls")
+                .description("SerpAPI calls made")
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a SerpAPI call that was not made; reason is a fixed word such as
+     * "breaker_open".
+     */
+    public void recordSerpApiSkipped(String reason) {
+        Counter.builder("platform.serpapi.skipped")
+                .description("SerpAPI calls skipped before reaching the API")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+}
@@ -4,12 +4,16 @@ import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+// Ahead of the security chain, so the JWT filter's time is part of the request
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
 @RequiredArgsConstructor
 public class RequestMonitoringFilter extends OncePerRequestFilter {
 
@@ -18,25 +22,31 @@ public class RequestMonitoringFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        
-        long start = System.currentTimeMillis();
+
+        // Only track API requests
+        String path = request.getRequestURI();
+        if (!path.startsWith("/api")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestTiming timing = RequestTiming.begin();
+        CountingResponseWrapper countingResponse = new CountingResponseWrapper(response);
         boolean isError = false;
         
         try {
-            filterChain.doFilter(request, response);
+            filterChain.doFilter(request, countingResponse);
         } catch (Exception e) {
             isError = true;
             throw e;
         } finally {
-            long duration = System.currentTimeMillis() - start;
+            RequestTiming.end();
             int status = response.getStatus();
             if (status >= 400) isError = true;
-            
-            // Only track API requests
-            String path = request.getRequestURI();
-            if (path.startsWith("/api")) {
-                monitoringService.recordRequest(path, duration, isError);
-            }
+
+            monitoringService.recordRequest(path, timing, isError);
+            // Streamed responses keep writing after this; their later bytes are not counted
+            monitoringService.recordTransfer(Math.max(0, request.getContentLengthLong()), countingResponse.getCount());
         }
     }
 }
@@ -0,0 +1,68 @@
+package com.example.demo.monitoring;
+
+import java.util.Locale;
+
+/**
+ * Where a request's time went, in nanoseconds per phase, for the thread
+ * serving it. {@link RequestMonitoringFilter} opens the context for /api
+ * requests; code that wants a phase timed brackets it with {@link #start()}
+ * and {@link #stop}.
+ *
+ * Phases may nest: JPA and EXTERNAL_HTTP time is spent inside CONTROLLER.
+ * Work handed to other threads (prefetch, write-behind, federated sources)
+ * is not attributed to the request.
+ */
+public final class RequestTiming {
+
+    public enum Phase {
+        JWT, CONTROLLER, JPA, EXTERNAL_HTTP;
+
+        private final String key = toString().toLowerCase(Locale.ROOT);
+
+        // Name in the dashboard data: jwt, controller, jpa, external_http
+        public String key() {
+            return key;
+        }
+    }
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    private RequestTiming() {
+    }
+
+    static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time since start to phase, if this thread is serving a timed
+     * request.
+     */
+    public static void stop(Phase phase, long start) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.phaseNanos[phase.ordinal()] += System.nanoTime() - start;
+        }
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+}
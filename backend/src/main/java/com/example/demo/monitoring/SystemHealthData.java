@@ -4,7 +4,7 @@ import lombok.Data;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Data
 public class SystemHealthData implements Serializable {
@@ -14,42 +14,124 @@ public class SystemHealthData implements Serializable {
     private long requestsPerMinute;
     private double errorRatePercent;
     private Map<String, EndpointMetric> endpoints = new ConcurrentHashMap<>();
+    // All endpoints together, per window ("1m", "5m", "15m")
+    private Map<String, LatencyHistogram.Snapshot> latency = new java.util.LinkedHashMap<>();
     private Map<String, TrafficDataPoint> trafficData = new ConcurrentHashMap<>();
     private RealtimeStats realtimeStats = new RealtimeStats();
 
     @Data
     public static class EndpointMetric {
         private String path;
-        private String status; // healthy, warning, error
-        private double averageResponseTime;
-        private long requestCount;
-        private long errorCount;
 
-        // Transient/Internal use
-        private transient AtomicLong totalTime = new AtomicLong(0);
-        private transient AtomicLong totalReqs = new AtomicLong(0);
-        private transient AtomicLong totalErrs = new AtomicLong(0);
+        // Transient/Internal use; adders keep record() cheap under concurrent requests,
+        // the derived values below are computed when read
+        private transient LongAdder totalTime = new LongAdder(); // microseconds
+        private transient LongAdder totalReqs = new LongAdder();
+        private transient LongAdder totalErrs = new LongAdder();
+        @com.fasterxml.jackson.annotation.JsonIgnore
+        private transient LatencyHistogram histogram = new LatencyHistogram();
+        // Micrometer timers for this endpoint (Prometheus export)
+        @com.fasterxml.jackson.annotation.JsonIgnore
+        private transient PlatformMetrics.EndpointTimers timers;
 
-        public void record(long timeMs, boolean isError) {
-            totalReqs.incrementAndGet();
-            totalTime.addAndGet(timeMs);
-            if (isError) totalErrs.incrementAndGet();
+        public void record(long durationNanos, boolean isError) {
+            long micros = durationNanos / 1000;
+            totalReqs.increment();
+            totalTime.add(micros);
+            histogram.record(micros);
+            if (isError) totalErrs.increment();
+        }
+
+        // Time per request phase (RequestTiming), nanoseconds, and how many requests were broken down
+        @com.fasterxml.jackson.annotation.JsonIgnore
+        private transient LongAdder[] phaseTime = newAdders(RequestTiming.Phase.values().length);
+        @com.fasterxml.jackson.annotation.JsonIgnore
+        private transient LongAdder timedReqs = new LongAdder();
+        @com.fasterxml.jackson.annotation.JsonIgnore
+        private transient LongAdder timedTotal = new LongAdder();
+
+        public void recordPhases(RequestTiming timing) {
+            timedReqs.increment();
+            timedTotal.add(timing.elapsedNanos());
+            for (RequestTiming.Phase phase : RequestTiming.Phase.values()) {
+                phaseTime[phase.ordinal()].add(timing.phaseNanos(phase));
+            }
+        }
+
+        /**
+         * Average milliseconds per request in each phase. JPA and external_http
+         * are part of controller; "other" is what no phase accounts for
+         * (the rest of the filter chain).
+         */
+        public Map<String, Double> getPhases() {
+            Map<String, Double> phases = new java.util.LinkedHashMap<>();
+            long reqs = timedReqs.sum();
+            if (reqs == 0) {
+                return phases;
+            }
+            for (RequestTiming.Phase phase : RequestTiming.Phase.values()) {
+                phases.put(phase.key(), averageMillis(phaseTime[phase.ordinal()].sum(), reqs));
+            }
+            long accounted = phaseTime[RequestTiming.Phase.JWT.ordinal()].sum()
+                    + phaseTime[RequestTiming.Phase.CONTROLLER.ordinal()].sum();
+            phases.put("other", averageMillis(Math.max(0, timedTotal.sum() - accounted), reqs));
+            return phases;
+        }
+
+        private static double averageMillis(long nanos, long reqs) {
+            return Math.round(nanos / 1e4 / reqs) / 100.0;
+        }
+
+        private static LongAdder[] newAdders(int count) {
+            LongAdder[] adders = new LongAdder[count];
+            for (int i = 0; i < count; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+        // p50/p95/p99/max per window ("1m", "5m", "15m")
+        public Map<String, LatencyHistogram.Snapshot> getLatency() {
+            return latencyWindows(histogram);
+        }
+
+        public long getRequestCount() {
+            return totalReqs.sum();
+        }
 
-            this.requestCount = totalReqs.get();
-            this.errorCount = totalErrs.get();
-            this.averageResponseTime = (double) totalTime.get() / totalReqs.get();
+        public long getErrorCount() {
+            return totalErrs.sum();
+        }
+
+        public double getAverageResponseTime() {
+            long reqs = totalReqs.sum();
+            return reqs > 0 ? totalTime.sum() / 1000.0 / reqs : 0;
+        }
+
+        // healthy, warning, error
+        public String getStatus() {
+            long reqs = totalReqs.sum();
+            double averageResponseTime = getAverageResponseTime();
 
             // logic for status
-            if (this.averageResponseTime > 500 || (totalReqs.get() > 0 && ((double)totalErrs.get()/totalReqs.get() > 0.05))) {
-                this.status = "warning";
-            } else if (this.averageResponseTime > 2000) {
-                 this.status = "error";
+            if (averageResponseTime > 500 || (reqs > 0 && ((double) totalErrs.sum() / reqs > 0.05))) {
+                return "warning";
+            } else if (averageResponseTime > 2000) {
+                return "error";
             } else {
-                this.status = "healthy";
+                return "healthy";
             }
         }
     }
 
+    public static Map<String, LatencyHistogram.Snapshot> latencyWindows(LatencyHistogram histogram) {
+        Map<String, LatencyHistogram.Snapshot> windows = new java.util.LinkedHashMap<>();
+        windows.put("1m", histogram.snapshot(1));
+        windows.put("5m", histogram.snapshot(5));
+        windows.put("15m", histogram.snapshot(15));
+        return windows;
+    }
+
     @Data
     public static class TrafficDataPoint {
         private String time;
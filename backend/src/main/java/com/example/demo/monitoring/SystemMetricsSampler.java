@@ -0,0 +1,270 @@
+package com.example.demo.monitoring;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Samples host and JVM load on a background thread for the traffic
+ * dashboard: CPU (process and system), heap, GC time, disk I/O from
+ * /proc/self/io, network I/O from /proc/net/dev and the HTTP body bytes
+ * counted by {@link RequestMonitoringFilter}.
+ *
+ * Counters are turned into per-second rates against the previous sample and
+ * kept in a bounded series, oldest first. Values a platform cannot provide
+ * (the /proc files outside Linux, CPU load before the JVM has measured it)
+ * are reported as -1.
+ */
+@Slf4j
+@Component
+public class SystemMetricsSampler {
+
+    /**
+     * One sample; rates are per second since the previous sample.
+     */
+    public record Sample(
+            long timeMillis,
+            double processCpuPercent,
+            double systemCpuPercent,
+            double heapUsedPercent,
+            long heapUsedBytes,
+            double gcTimePercent,
+            double diskReadBytesPerSec,
+            double diskWriteBytesPerSec,
+            double networkReceivedBytesPerSec,
+            double networkSentBytesPerSec,
+            double httpReceivedBytesPerSec,
+            double httpSentBytesPerSec) implements java.io.Serializable {
+    }
+
+    private static final Path PROC_SELF_IO = Path.of("/proc/self/io");
+    private static final Path PROC_NET_DEV = Path.of("/proc/net/dev");
+
+    private final java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final java.lang.management.MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private final LongAdder httpReceivedBytes = new LongAdder();
+    private final LongAdder httpSentBytes = new LongAdder();
+
+    private final int capacity;
+    private final Path procSelfIo;
+    private final Path procNetDev;
+    private final LongSupplier clock;
+    private final ArrayDeque<Sample> samples;
+    private final ScheduledExecutorService executor;
+
+    // Counter values at the previous sample; only the sampling thread touches them
+    private Counters previous;
+
+    @Autowired
+    public SystemMetricsSampler(
+            @Value("${monitoring.system.sample-interval-ms:5000}") long sampleIntervalMs,
+            @Value("${monitoring.system.samples:120}") int capacity) {
+        this(capacity, PROC_SELF_IO, PROC_NET_DEV, System::currentTimeMillis);
+
+        this.executor.scheduleWithFixedDelay(this::sampleQuietly, sampleIntervalMs, sampleIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Does not sample on its own; tests call sample()
+    SystemMetricsSampler(int capacity, Path procSelfIo, Path procNetDev, LongSupplier clock) {
+        this.capacity = Math.max(1, capacity);
+        this.procSelfIo = procSelfIo;
+        this.procNetDev = procNetDev;
+        this.clock = clock;
+        this.samples = new ArrayDeque<>(this.capacity);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "system-metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.previous = readCounters();
+    }
+
+    /**
+     * Counts HTTP body bytes; called once per request.
+     */
+    public void recordTransfer(long receivedBytes, long sentBytes) {
+        if (receivedBytes > 0) {
+            httpReceivedBytes.add(receivedBytes);
+        }
+        if (sentBytes > 0) {
+            httpSentBytes.add(sentBytes);
+        }
+    }
+
+    /**
+     * The sampled series, oldest first.
+     */
+    public List<Sample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * The most recent sample, or null before the first one.
+     */
+    public Sample getLatest() {
+        synchronized (samples) {
+            return samples.peekLast();
+        }
+    }
+
+    private void sampleQuietly() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.warn("System metrics sample failed", e);
+        }
+    }
+
+    Sample sample() {
+        Counters current = readCounters();
+        double seconds = Math.max(1, current.nanos - previous.nanos) / 1e9;
+
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        long heapLimit = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+
+        Sample sample = new Sample(
+                clock.getAsLong(),
+                cpuPercent(true),
+                cpuPercent(false),
+                heapLimit > 0 ? heap.getUsed() * 100.0 / heapLimit : -1,
+                heap.getUsed(),
+                Math.min(100, (current.gcMillis - previous.gcMillis) / 10.0 / seconds),
+                rate(previous.diskRead, current.diskRead, seconds),
+                rate(previous.diskWrite, current.diskWrite, seconds),
+                rate(previous.networkReceived, current.networkReceived, seconds),
+                rate(previous.networkSent, current.networkSent, seconds),
+                rate(previous.httpReceived, current.httpReceived, seconds),
+                rate(previous.httpSent, current.httpSent, seconds));
+        previous = current;
+
+        synchronized (samples) {
+            if (samples.size() == capacity) {
+                samples.removeFirst();
+            }
+            samples.addLast(sample);
+        }
+        return sample;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private double cpuPercent(boolean process) {
+        if (!(os instanceof com.sun.management.OperatingSystemMXBean sunOs)) {
+            return -1;
+        }
+        double load = process ? sunOs.getProcessCpuLoad() : sunOs.getCpuLoad();
+        return load < 0 ? -1 : load * 100;
+    }
+
+    private static double rate(long before, long after, double seconds) {
+        if (before < 0 || after < 0) {
+            return -1;
+        }
+        return Math.max(0, after - before) / seconds;
+    }
+
+    private record Counters(long nanos, long gcMillis, long diskRead, long diskWrite,
+                            long networkReceived, long networkSent, long httpReceived, long httpSent) {
+    }
+
+    private Counters readCounters() {
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+        long[] disk = parseProcIo(readLines(procSelfIo));
+        long[] network = parseNetDev(readLines(procNetDev));
+        return new Counters(System.nanoTime(), gcMillis, disk[0], disk[1], network[0], network[1],
+                httpReceivedBytes.sum(), httpSentBytes.sum());
+    }
+
+    private static List<String> readLines(Path path) {
+        try {
+            return Files.readAllLines(path);
+        } catch (IOException | SecurityException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * read_bytes and write_bytes (storage I/O, not page-cache hits) from
+     * /proc/self/io, or -1 each when missing.
+     */
+    static long[] parseProcIo(List<String> lines) {
+        long[] counters = { -1, -1 };
+        for (String line : lines) {
+            if (line.startsWith("read_bytes:")) {
+                counters[0] = parseLong(line.substring("read_bytes:".length()));
+            } else if (line.startsWith("write_bytes:")) {
+                counters[1] = parseLong(line.substring("write_bytes:".length()));
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Bytes received and sent over all interfaces except loopback, from
+     * /proc/net/dev, or -1 each when missing.
+     */
+    static long[] parseNetDev(List<String> lines) {
+        long received = 0;
+        long sent = 0;
+        boolean found = false;
+        for (String line : lines) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue; // the two header lines
+            }
+            if (line.substring(0, colon).trim().equals("lo")) {
+                continue;
+            }
+            // receive: bytes packets errs drop fifo frame compressed multicast, then transmit: bytes ...
+            String[] fields = line.substring(colon + 1).trim().split("\\s+");
+            if (fields.length < 9) {
+                continue;
+            }
+            long rx = parseLong(fields[0]);
+            long tx = parseLong(fields[8]);
+            if (rx >= 0 && tx >= 0) {
+                received += rx;
+                sent += tx;
+                found = true;
+            }
+        }
+        return found ? new long[] { received, sent } : new long[] { -1, -1 };
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Counts the time spent in JDBC (getting a connection, preparing and
+ * executing statements, reading rows, commit and rollback) as the JPA phase
+ * of the current request. Wraps the application DataSource, so Hibernate and
+ * JdbcTemplate queries are both seen.
+ *
+ * Connections, statements and result sets are handed out as JDK proxies;
+ * unwrap() still reaches the pool's own objects.
+ */
+public class TimingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> TIMED_CONNECTION_METHODS =
+            Set.of("prepareStatement", "prepareCall", "commit", "rollback");
+
+    public TimingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = RequestTiming.start();
+        try {
+            return wrap(Connection.class, super.getConnection());
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.JPA, start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = RequestTiming.start();
+        try {
+            return wrap(Connection.class, super.getConnection(username, password));
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.JPA, start);
+        }
+    }
+
+    private static boolean isTimed(Object target, String method) {
+        if (target instanceof ResultSet) {
+            return method.equals("next");
+        }
+        if (target instanceof Statement) {
+            return method.startsWith("execute");
+        }
+        return TIMED_CONNECTION_METHODS.contains(method);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Class<T> type, T target) {
+        if (target == null) {
+            return null;
+        }
+        return (T) Proxy.newProxyInstance(TimingDataSource.class.getClassLoader(), new Class<?>[] { type },
+                new TimingHandler(target));
+    }
+
+    /**
+     * Times the JDBC calls that talk to the database and wraps the statements
+     * and result sets they return.
+     */
+    private static final class TimingHandler implements InvocationHandler {
+
+        private final Object target;
+
+        private TimingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+
+            boolean timed = isTimed(target, name);
+            long start = timed ? RequestTiming.start() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (timed) {
+                    RequestTiming.stop(RequestTiming.Phase.JPA, start);
+                }
+            }
+
+            if (name.equals("unwrap")) {
+                return result;
+            }
+            if (target instanceof Connection) {
+                return wrapStatement(result);
+            }
+            if (result instanceof ResultSet resultSet && target instanceof Statement) {
+                return wrap(ResultSet.class, resultSet);
+            }
+            return result;
+        }
+
+        private static Object wrapStatement(Object result) {
+            if (result instanceof CallableStatement statement) {
+                return wrap(CallableStatement.class, statement);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return wrap(PreparedStatement.class, statement);
+            }
+            if (result instanceof Statement statement) {
+                return wrap(Statement.class, statement);
+            }
+            return result;
+        }
+    }
+}
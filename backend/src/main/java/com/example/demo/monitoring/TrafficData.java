@@ -9,6 +9,8 @@ public class TrafficData implements Serializable {
     private List<TrafficDataPoint> trafficData;
     private RealtimeStats realtimeStats;
     private ServerLoad serverLoad;
+    // Recent system samples, oldest first
+    private List<SystemMetricsSampler.Sample> systemSamples;
 
     @Data
     public static class TrafficDataPoint {
@@ -23,14 +25,15 @@ public class TrafficData implements Serializable {
         private long currentUsers;
         private long requestsPerSecond;
         private long activeConnections;
-        private long bandwidth; // MB/s
+        private double bandwidth; // MB/s of HTTP request and response bodies
     }
 
     @Data
     public static class ServerLoad {
-        private double cpuUsage; // percentage
-        private double memoryUsage; // percentage
-        private double diskIo; // percentage
-        private double networkIo; // percentage
+        private double cpuUsage; // percentage, this process
+        private double memoryUsage; // percentage of max heap
+        private double diskIo; // MB/s read + written by this process
+        private double networkIo; // MB/s received + sent by the host
+        // -1 where the platform does not report the value
     }
 }
\ No newline at end of file
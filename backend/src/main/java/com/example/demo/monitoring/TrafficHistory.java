@@ -0,0 +1,111 @@
+package com.example.demo.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Request and error counts per time bucket over a fixed span, for the traffic
+ * chart.
+ *
+ * A ring of one slot per bucket. Recording adds to the current bucket's
+ * {@link LongAdder}s; the first request of a new bucket swaps a fresh slot in
+ * with one compare-and-set. Nothing locks, and the cost of a request does not
+ * grow with the number of threads or points. Readers copy the ring without
+ * stopping writers, so a snapshot may miss a request still being counted.
+ */
+class TrafficHistory {
+
+    /**
+     * One bucket's counts; startMillis is when the bucket began.
+     */
+    record Point(long startMillis, long requests, long errors) {
+    }
+
+    private static final class Slot {
+        private final long bucket;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private Slot(long bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private final long bucketMillis;
+    private final int capacity;
+    private final LongSupplier clock;
+    private final AtomicReferenceArray<Slot> slots;
+
+    TrafficHistory(long bucketMillis, int capacity, LongSupplier clock) {
+        this.bucketMillis = bucketMillis;
+        this.capacity = capacity;
+        this.clock = clock;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    void record(boolean isError) {
+        long bucket = clock.getAsLong() / bucketMillis;
+        Slot slot = slot(bucket);
+        if (slot == null) {
+            return;
+        }
+        slot.requests.increment();
+        if (isError) {
+            slot.errors.increment();
+        }
+    }
+
+    /**
+     * The buckets from the oldest recorded one up to the current one, oldest
+     * first; buckets without requests are included with zero counts.
+     */
+    List<Point> snapshot() {
+        long current = clock.getAsLong() / bucketMillis;
+        long oldest = current - capacity + 1;
+
+        long[] requests = new long[capacity];
+        long[] errors = new long[capacity];
+        long first = current + 1;
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = slots.get(i);
+            if (slot == null || slot.bucket < oldest || slot.bucket > current) {
+                continue;
+            }
+            int offset = (int) (slot.bucket - oldest);
+            requests[offset] = slot.requests.sum();
+            errors[offset] = slot.errors.sum();
+            first = Math.min(first, slot.bucket);
+        }
+
+        List<Point> points = new ArrayList<>();
+        for (long bucket = first; bucket <= current; bucket++) {
+            int offset = (int) (bucket - oldest);
+            points.add(new Point(bucket * bucketMillis, requests[offset], errors[offset]));
+        }
+        return points;
+    }
+
+    /**
+     * The slot for bucket, replacing the one left from an older lap of the
+     * ring; null if a newer lap has already taken it.
+     */
+    private Slot slot(long bucket) {
+        int index = (int) Math.floorMod(bucket, (long) capacity);
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot != null && slot.bucket == bucket) {
+                return slot;
+            }
+            if (slot != null && slot.bucket > bucket) {
+                return null;
+            }
+            Slot fresh = new Slot(bucket);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                return fresh;
+            }
+        }
+    }
+}
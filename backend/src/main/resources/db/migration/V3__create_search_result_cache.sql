@@ -0,0 +1,13 @@
+-- Persistent tier of the external search cache: the ordered application numbers
+-- of one search, so results can be rebuilt from ip_assets after a restart
+CREATE TABLE IF NOT EXISTS search_result_cache (
+  query_hash VARCHAR(64) PRIMARY KEY,
+  query_text VARCHAR(500) NOT NULL,
+  result_limit INT NOT NULL,
+  application_numbers TEXT NOT NULL,
+  result_count INT NOT NULL,
+  fetched_at TIMESTAMP NOT NULL
+);
+
+-- Purge job deletes by age
+CREATE INDEX IF NOT EXISTS idx_search_result_cache_fetched_at ON search_result_cache (fetched_at);
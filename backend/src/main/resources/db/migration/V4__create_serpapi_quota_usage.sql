@@ -0,0 +1,7 @@
+-- SerpAPI calls made per UTC day ("2026-10-18") and per month ("2026-10"),
+-- so quota usage survives restarts and is shared between instances
+CREATE TABLE IF NOT EXISTS serpapi_quota_usage (
+  period_key VARCHAR(10) PRIMARY KEY,
+  calls BIGINT NOT NULL,
+  updated_at TIMESTAMP NOT NULL
+);
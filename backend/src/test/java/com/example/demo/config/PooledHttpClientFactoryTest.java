@@ -0,0 +1,99 @@
+package com.example.demo.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PooledHttpClientFactoryTest {
+
+    private HttpServer server;
+    private final Set<InetSocketAddress> clientSockets = ConcurrentHashMap.newKeySet();
+    private final PooledHttpClientFactory factory = new PooledHttpClientFactory();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok", exchange -> {
+            clientSockets.add(exchange.getRemoteAddress());
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        factory.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void reuses_kept_alive_connection_across_requests() {
+        RestTemplate restTemplate = factory.create("test", settings(Duration.ofSeconds(5)));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(restTemplate.getForObject(url("/ok"), String.class)).isEqualTo("ok");
+        }
+
+        assertThat(clientSockets).hasSize(1);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> pool = (Map<String, Object>) factory.getStats().get("test");
+        assertThat(pool).containsEntry("leased", 0).containsEntry("available", 1).containsEntry("routes", 1);
+    }
+
+    @Test
+    void read_timeout_fails_slow_response() {
+        RestTemplate restTemplate = factory.create("test", settings(Duration.ofMillis(200)));
+
+        assertThatThrownBy(() -> restTemplate.getForObject(url("/slow"), String.class))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasCauseInstanceOf(SocketTimeoutException.class);
+    }
+
+    @Test
+    void outbound_deadline_cuts_the_read_timeout() {
+        RestTemplate restTemplate = factory.create("test", settings(Duration.ofSeconds(5)));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> OutboundDeadline.within(Duration.ofMillis(200),
+                () -> restTemplate.getForObject(url("/slow"), String.class)))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasCauseInstanceOf(SocketTimeoutException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(OutboundDeadline.hasPassed()).as("deadline ends with the call").isFalse();
+    }
+
+    private HttpClientSettings settings(Duration readTimeout) {
+        return new HttpClientSettings(Duration.ofSeconds(1), readTimeout, Duration.ofSeconds(1), 4, 2, Duration.ofSeconds(30));
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+}
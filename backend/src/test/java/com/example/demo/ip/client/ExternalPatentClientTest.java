@@ -0,0 +1,81 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.monitoring.PlatformMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExternalPatentClientTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final ExternalSearchCircuitBreaker breaker =
+            new ExternalSearchCircuitBreaker(10, 2, 50, 5_000, 2, now::get);
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final SerpApiResponseParser parser = mock(SerpApiResponseParser.class);
+    private final SerpApiRateLimiter rateLimiter = mock(SerpApiRateLimiter.class);
+    private final ExternalPatentClient client = new ExternalPatentClient(restTemplate, new SearchRequestCoalescer(),
+            breaker, rateLimiter, parser, new PlatformMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void a_runtime_failure_in_the_parser_settles_the_half_open_probe() throws Exception {
+        serpApiRespondsAndParserThrows(new IllegalStateException("unexpected token"));
+        halfOpenBreaker();
+
+        assertThat(client.fetchPatents("solar", 20, 0)).isEmpty();
+
+        // The failed probe re-opened the breaker instead of holding a probe slot
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.OPEN);
+        now.addAndGet(5_000);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void an_error_in_the_parser_settles_the_half_open_probe_and_is_rethrown() throws Exception {
+        serpApiRespondsAndParserThrows(new StackOverflowError());
+        halfOpenBreaker();
+
+        assertThatThrownBy(() -> client.fetchPatents("solar", 20, 0)).isInstanceOf(StackOverflowError.class);
+
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.OPEN);
+        now.addAndGet(5_000);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    private void serpApiRespondsAndParserThrows(Throwable failure) throws Exception {
+        ReflectionTestUtils.setField(client, "apiKey", "key");
+        when(rateLimiter.acquire()).thenReturn(true);
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), isNull(), any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> {
+                    ClientHttpResponse response = mock(ClientHttpResponse.class);
+                    when(response.getBody()).thenReturn(new ByteArrayInputStream(new byte[0]));
+                    return invocation.<ResponseExtractor<?>>getArgument(3).extractData(response);
+                });
+        when(parser.parse(any())).thenThrow(failure);
+    }
+
+    // Trip the breaker, then let it go half-open
+    private void halfOpenBreaker() {
+        for (int i = 0; i < 2; i++) {
+            breaker.tryAcquire();
+            breaker.recordFailure();
+        }
+        now.addAndGet(5_000);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.ip.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExternalSearchCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final ExternalSearchCircuitBreaker breaker =
+            new ExternalSearchCircuitBreaker(10, 4, 50, 5_000, 2, now::get);
+
+    @Test
+    void opens_once_failure_rate_reaches_threshold_over_minimum_calls() {
+        call(false);
+        call(true);
+        call(true);
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.CLOSED);
+
+        // 4th call: 3 of 4 failed
+        call(true);
+
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.OPEN);
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getStats()).containsEntry("rejectedCalls", 1L).containsEntry("timesOpened", 1L);
+    }
+
+    @Test
+    void old_failures_slide_out_of_the_window() {
+        call(true);
+        call(true);
+        call(false);
+        call(false);
+        call(false);
+        for (int i = 0; i < 10; i++) {
+            call(false);
+        }
+        call(true);
+        call(true);
+
+        // Window holds 8 successes and 2 failures: 20%
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getStats()).containsEntry("failedCalls", 2).containsEntry("bufferedCalls", 10);
+    }
+
+    @Test
+    void half_open_probes_close_the_breaker_when_they_all_succeed() {
+        trip();
+        now.addAndGet(5_000);
+
+        assertThat(breaker.isOpen()).isFalse();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        // Only two probes are allowed in flight
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.HALF_OPEN);
+
+        breaker.recordSuccess();
+        breaker.recordSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void failed_probe_reopens_the_breaker() {
+        trip();
+        now.addAndGet(5_000);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.recordFailure();
+
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.OPEN);
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.getStats()).containsEntry("timesOpened", 2L).containsEntry("retryInMs", 5_000L);
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertThat(breaker.getState()).isEqualTo(ExternalSearchCircuitBreaker.State.OPEN);
+    }
+
+    private void call(boolean fails) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (fails) {
+            breaker.recordFailure();
+        } else {
+            breaker.recordSuccess();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.ip.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-result field normalization: four dates and one country code, regex
+ * versions versus {@link PatentFieldNormalizer}. Inputs mirror SerpAPI
+ * values, mostly full dates with the odd year-only and missing one.
+ *
+ * Run like {@link SerpApiResponseParsingBenchmark}; scores are per result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatentFieldNormalizationBenchmark {
+
+    private static final String[][] RESULTS = {
+            {"2014-04-12", "2015-12-03", "2013-09-22", "2017-02-18", "CN11987817B2"},
+            {"2019-06-30", "2020-01-19", "2018-07-02", null, "DE11153894A1"},
+            {"2014-03-09", "2015", "2013-09-22", "2017-06-26", "US10520988B2"},
+            {"2010-11-05", "2012-05-10", "2009-11-06", "2014-08-12", "wo2012061234A1"},
+            {"2021-02", "2022-08-17", "2020-02-28", null, "EP3901234A1"},
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(5)
+    public void handWritten(Blackhole bh) {
+        for (String[] result : RESULTS) {
+            bh.consume(PatentFieldNormalizer.normalizeDate(result[0]));
+            bh.consume(PatentFieldNormalizer.normalizeDate(result[1]));
+            bh.consume(PatentFieldNormalizer.normalizeDate(result[2]));
+            bh.consume(PatentFieldNormalizer.normalizeDate(result[3]));
+            bh.consume(PatentFieldNormalizer.countryFromPublication(result[4]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(5)
+    public void regex(Blackhole bh) {
+        for (String[] result : RESULTS) {
+            bh.consume(regexNormalizeDate(result[0]));
+            bh.consume(regexNormalizeDate(result[1]));
+            bh.consume(regexNormalizeDate(result[2]));
+            bh.consume(regexNormalizeDate(result[3]));
+            bh.consume(regexCountry(result[4]));
+        }
+    }
+
+    private static String regexNormalizeDate(Object value) {
+        if (value == null)
+            return null;
+
+        String date = value.toString().trim();
+
+        if (date.matches("\\d{4}-\\d{2}-\\d{2}"))
+            return date;
+        if (date.matches("\\d{4}-\\d{2}"))
+            return date + "-01";
+        if (date.matches("\\d{4}"))
+            return date + "-01-01";
+
+        return null;
+    }
+
+    private static String regexCountry(String publicationNumber) {
+        if (publicationNumber == null || publicationNumber.length() < 2) {
+            return "UNKNOWN";
+        }
+
+        String country = publicationNumber.substring(0, 2).toUpperCase();
+
+        return country.matches("[A-Z]{2}") ? country : "UNKNOWN";
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PatentFieldNormalizationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
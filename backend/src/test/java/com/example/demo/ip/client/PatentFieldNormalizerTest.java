@@ -0,0 +1,87 @@
+package com.example.demo.ip.client;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The hand-written normalizer must agree with the regex versions it replaced
+ * (kept below as the reference) on any input.
+ */
+public class PatentFieldNormalizerTest {
+
+    @Property(tries = 5000)
+    void date_normalization_matches_regex_version(@ForAll("dateLike") String value) {
+        assertThat(PatentFieldNormalizer.normalizeDate(value)).isEqualTo(regexNormalizeDate(value));
+    }
+
+    @Property(tries = 2000)
+    void date_normalization_matches_regex_version_on_arbitrary_text(@ForAll String value) {
+        assertThat(PatentFieldNormalizer.normalizeDate(value)).isEqualTo(regexNormalizeDate(value));
+    }
+
+    @Property(tries = 5000)
+    void country_extraction_matches_regex_version(@ForAll("publicationNumberLike") String value) {
+        assertThat(PatentFieldNormalizer.countryFromPublication(value)).isEqualTo(regexCountry(value));
+    }
+
+    @Property(tries = 2000)
+    void country_extraction_matches_regex_version_on_arbitrary_text(@ForAll String value) {
+        assertThat(PatentFieldNormalizer.countryFromPublication(value)).isEqualTo(regexCountry(value));
+    }
+
+    /**
+     * Digit groups of 0-5 chars joined by separators and wrapped in optional
+     * whitespace, so all three accepted shapes and their near misses come up often.
+     */
+    @Provide
+    Arbitrary<String> dateLike() {
+        Arbitrary<String> pad = Arbitraries.of("", "", " ", "\t", "\n ", " ", " ");
+        Arbitrary<String> digits = Arbitraries.strings().withChars("0123456789٣").ofMaxLength(5);
+        Arbitrary<String> separator = Arbitraries.of("-", "-", "-", "/", "", " ", "--");
+
+        return Combinators.combine(pad, digits, separator, digits, separator, digits, pad)
+                .as((before, year, s1, month, s2, day, after) -> before + year + s1 + month + s2 + day + after)
+                .injectNull(0.02);
+    }
+
+    @Provide
+    Arbitrary<String> publicationNumberLike() {
+        return Arbitraries.strings()
+                .withChars("aAzZuUsS09-/ ıſßİéK")
+                .withCharRange('a', 'z')
+                .ofMaxLength(6)
+                .injectNull(0.02);
+    }
+
+    private static String regexNormalizeDate(Object value) {
+        if (value == null)
+            return null;
+
+        String date = value.toString().trim();
+
+        if (date.matches("\\d{4}-\\d{2}-\\d{2}"))
+            return date;
+        if (date.matches("\\d{4}-\\d{2}"))
+            return date + "-01";
+        if (date.matches("\\d{4}"))
+            return date + "-01-01";
+
+        return null;
+    }
+
+    private static String regexCountry(String publicationNumber) {
+        if (publicationNumber == null || publicationNumber.length() < 2) {
+            return "UNKNOWN";
+        }
+
+        String country = publicationNumber.substring(0, 2).toUpperCase();
+
+        return country.matches("[A-Z]{2}") ? country : "UNKNOWN";
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SearchRequestCoalescerTest {
+
+    @Test
+    void concurrent_callers_with_the_same_normalized_key_share_one_call() throws Exception {
+        SearchRequestCoalescer coalescer = new SearchRequestCoalescer();
+        AtomicInteger outboundCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<IPSearchResultDTO> page = List.of(new IPSearchResultDTO("Solar panel", "PATENT", "US1", "FILED"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<List<IPSearchResultDTO>>> futures = new ArrayList<>();
+        String[] queries = {"Solar Panel", "solar panel ", " SOLAR   panel"};
+        for (int i = 0; i < 8; i++) {
+            String query = queries[i % queries.length];
+            futures.add(pool.submit(() -> coalescer.execute(PatentSearchKey.normalized(query, 20, 0), () -> {
+                outboundCalls.incrementAndGet();
+                await(release);
+                return page;
+            })));
+        }
+
+        // Let every caller reach the coalescer before the leader finishes
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<List<IPSearchResultDTO>> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(page);
+        }
+        pool.shutdown();
+
+        assertThat(outboundCalls.get()).isEqualTo(1);
+        assertThat(coalescer.getStats())
+                .containsEntry("executed", 1L)
+                .containsEntry("coalesced", 7L)
+                .containsEntry("inFlight", 0);
+    }
+
+    @Test
+    void followers_are_released_when_the_leader_fails_with_an_error() throws Exception {
+        SearchRequestCoalescer coalescer = new SearchRequestCoalescer();
+        PatentSearchKey key = PatentSearchKey.normalized("solar", 20, 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        Future<List<IPSearchResultDTO>> leader = pool.submit(() -> coalescer.execute(key, () -> {
+            await(release);
+            throw new AssertionError("parser invariant broken");
+        }));
+        while (coalescer.getStats().get("executed").equals(0L)) {
+            Thread.onSpinWait();
+        }
+        List<Future<List<IPSearchResultDTO>>> followers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            followers.add(pool.submit(() -> coalescer.execute(key, List::of)));
+        }
+        while (!coalescer.getStats().get("coalesced").equals(2L)) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        for (Future<List<IPSearchResultDTO>> follower : followers) {
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasRootCauseInstanceOf(AssertionError.class);
+        }
+        pool.shutdown();
+        assertThat(coalescer.getStats()).containsEntry("inFlight", 0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.entity.SerpApiQuotaUsage;
+import com.example.demo.ip.repository.SerpApiQuotaUsageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static com.example.demo.ip.client.SerpApiRateLimiter.Lane.BACKGROUND;
+import static com.example.demo.ip.client.SerpApiRateLimiter.Lane.INTERACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Usage is written in its own transactions, so the test must not hold one open
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SerpApiQuotaTrackerTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-18T12:00:00Z"), ZoneOffset.UTC);
+
+    @Autowired
+    private SerpApiQuotaUsageRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void background_calls_stop_at_their_share_and_interactive_at_the_limit() {
+        SerpApiQuotaTracker tracker = tracker(4);
+
+        assertThat(tracker.tryReserve(BACKGROUND)).isTrue();
+        assertThat(tracker.tryReserve(BACKGROUND)).isTrue();
+        assertThat(tracker.tryReserve(BACKGROUND)).isFalse();
+        assertThat(tracker.tryReserve(INTERACTIVE)).isTrue();
+        assertThat(tracker.tryReserve(INTERACTIVE)).isTrue();
+        assertThat(tracker.tryReserve(INTERACTIVE)).isFalse();
+
+        assertThat(tracker.getStats())
+                .containsEntry("monthCalls", 4L)
+                .containsEntry("monthlyUsedPercent", 100.0)
+                .containsEntry("rejectedBackground", 1L)
+                .containsEntry("rejectedInteractive", 1L);
+    }
+
+    @Test
+    void usage_is_stored_per_day_and_month_and_survives_a_restart() {
+        SerpApiQuotaTracker tracker = tracker(3);
+        tracker.tryReserve(INTERACTIVE);
+        tracker.tryReserve(INTERACTIVE);
+        tracker.tryReserve(INTERACTIVE);
+        tracker.unreserve();
+        tracker.flush();
+
+        assertThat(repository.findById("2026-10-18")).map(SerpApiQuotaUsage::getCalls).contains(2L);
+        assertThat(repository.findById("2026-10")).map(SerpApiQuotaUsage::getCalls).contains(2L);
+
+        // A second instance adds to the stored counts instead of overwriting them
+        SerpApiQuotaTracker restarted = tracker(3);
+        assertThat(restarted.tryReserve(INTERACTIVE)).isTrue();
+        assertThat(restarted.tryReserve(INTERACTIVE)).isFalse();
+        restarted.flush();
+
+        assertThat(repository.findById("2026-10")).map(SerpApiQuotaUsage::getCalls).contains(3L);
+    }
+
+    @Test
+    void each_flush_picks_up_calls_stored_by_other_instances() {
+        SerpApiQuotaTracker first = tracker(4);
+        SerpApiQuotaTracker second = tracker(4);
+
+        first.tryReserve(INTERACTIVE);
+        first.tryReserve(INTERACTIVE);
+        first.flush();
+        second.tryReserve(INTERACTIVE);
+
+        // second only learns of first's calls on its own flush; its unflushed call still counts
+        assertThat(second.getStats()).containsEntry("monthCalls", 1L);
+        second.flush();
+        assertThat(second.getStats()).containsEntry("monthCalls", 3L);
+        assertThat(second.tryReserve(INTERACTIVE)).isTrue();
+        assertThat(second.tryReserve(INTERACTIVE)).isFalse();
+
+        first.flush();
+        assertThat(first.getStats()).containsEntry("monthCalls", 3L);
+        second.flush();
+        assertThat(first.getStats()).containsEntry("monthCalls", 3L);
+        first.flush();
+        assertThat(first.getStats()).containsEntry("monthCalls", 4L);
+        assertThat(first.tryReserve(INTERACTIVE)).isFalse();
+    }
+
+    private SerpApiQuotaTracker tracker(long monthlyLimit) {
+        return new SerpApiQuotaTracker(repository, transactionManager, 0, monthlyLimit, 0.5, CLOCK);
+    }
+}
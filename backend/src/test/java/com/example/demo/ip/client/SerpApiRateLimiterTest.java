@@ -0,0 +1,108 @@
+package com.example.demo.ip.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SerpApiRateLimiterTest {
+
+    private final SerpApiQuotaTracker quota = mock(SerpApiQuotaTracker.class);
+    private final AtomicLong nanos = new AtomicLong();
+    private final List<String> grants = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void interactive_calls_go_first_and_users_take_turns() throws Exception {
+        when(quota.tryReserve(any())).thenReturn(true);
+        // One token per millisecond of the fake clock, no burst; waits never time out
+        SerpApiRateLimiter limiter = new SerpApiRateLimiter(quota, 1000, 1, 60_000, 60_000, nanos::get);
+        assertThat(limiter.acquire()).isTrue();
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(waiter(limiter, "background", () -> SerpApiRateLimiter.inBackground("carol", limiter::acquire)));
+        awaitWaiting(limiter, "background", 1);
+        for (String name : List.of("alice-1", "alice-2", "alice-3", "bob-1")) {
+            threads.add(waiter(limiter, name, () -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(name.substring(0, name.indexOf('-')), null, List.of()));
+                return limiter.acquire();
+            }));
+            awaitWaiting(limiter, "interactive", threads.size() - 1);
+        }
+
+        for (int i = 1; i <= threads.size(); i++) {
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            awaitGrants(i);
+        }
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertThat(grants).containsExactly("alice-1", "bob-1", "alice-2", "alice-3", "background");
+    }
+
+    @Test
+    void call_is_refused_over_quota_or_after_the_max_wait() {
+        SerpApiRateLimiter limiter = new SerpApiRateLimiter(quota, 1, 1, 0, 0, nanos::get);
+
+        when(quota.tryReserve(any())).thenReturn(false);
+        assertThat(limiter.acquire()).isFalse();
+
+        when(quota.tryReserve(any())).thenReturn(true);
+        assertThat(limiter.acquire()).isTrue();
+        // Bucket is empty and nobody may wait, so the reservation is returned
+        assertThat(limiter.acquire()).isFalse();
+        verify(quota).unreserve();
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> interactive = (Map<String, Object>) limiter.getStats().get("interactive");
+        assertThat(interactive)
+                .containsEntry("granted", 1L)
+                .containsEntry("timedOut", 1L)
+                .containsEntry("overQuota", 1L);
+    }
+
+    private Thread waiter(SerpApiRateLimiter limiter, String name, java.util.function.Supplier<Boolean> acquire) {
+        Thread thread = new Thread(() -> {
+            if (acquire.get()) {
+                grants.add(name);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void awaitWaiting(SerpApiRateLimiter limiter, String lane, int expected) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Object> stats = (Map<String, Object>) limiter.getStats().get(lane);
+            if (Integer.valueOf(expected).equals(stats.get("waiting"))) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+        throw new AssertionError("Expected " + expected + " waiting in " + lane);
+    }
+
+    private void awaitGrants(int expected) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (grants.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(grants).hasSize(expected);
+    }
+}
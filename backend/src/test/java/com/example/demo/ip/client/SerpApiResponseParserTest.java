@@ -0,0 +1,80 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SerpApiResponseParserTest {
+
+    private final SerpApiResponseParser parser = new SerpApiResponseParser(new ObjectMapper());
+
+    @Test
+    void maps_organic_results_and_skips_everything_else() throws IOException {
+        SerpApiResponseParser.Page page;
+        try (InputStream body = getClass().getResourceAsStream("/serpapi/google_patents_solar_panel.json")) {
+            page = parser.parse(body);
+        }
+
+        assertThat(page.error()).isNull();
+        assertThat(page.topLevelFields()).contains("search_metadata", "organic_results", "pagination");
+        assertThat(page.results()).hasSize(20);
+
+        IPSearchResultDTO first = page.results().get(0);
+        assertThat(first.getTitle()).isEqualTo("Coating module solar glass cell encapsulant");
+        assertThat(first.getApplicationNumber()).isEqualTo("CN11987817B2");
+        assertThat(first.getCountry()).isEqualTo("CN");
+        assertThat(first.getAssetType()).isEqualTo("PATENT");
+        assertThat(first.getLegalStatus()).isEqualTo("GRANTED");
+        assertThat(first.getFilingDate()).isEqualTo("2014-04-12");
+        assertThat(first.getPublicationDate()).isEqualTo("2015-12-03");
+        assertThat(first.getGrantDate()).isEqualTo("2017-02-18");
+        assertThat(first.getOwnerName()).isEqualTo("Hanwha Q Cells GmbH");
+        assertThat(first.getInventorName()).isEqualTo("Jane Doe");
+        assertThat(first.getPdfLink()).isEqualTo("https://patentimages.storage.googleapis.com/00/CN11987817B2.pdf");
+        assertThat(first.getReferenceSource()).isEqualTo("GOOGLE_PATENTS");
+
+        assertThat(page.results().get(2).getLegalStatus()).isEqualTo("PUBLISHED");
+        // Only publication_date_raw ("2015") is present on this one
+        assertThat(page.results().get(7).getPublicationDate()).isEqualTo("2015-01-01");
+    }
+
+    @Test
+    void fills_defaults_for_missing_and_null_fields() throws IOException {
+        SerpApiResponseParser.Page page = parse("""
+                {"organic_results": [
+                  {"publication_number": "wo2020123A1", "assignee": null, "inventor": ["A", "B"], "rank": 3},
+                  "not an object"
+                ]}
+                """);
+
+        assertThat(page.results()).hasSize(1);
+        IPSearchResultDTO dto = page.results().get(0);
+        assertThat(dto.getTitle()).isEqualTo("Untitled Patent");
+        assertThat(dto.getApplicationNumber()).isEqualTo("wo2020123A1");
+        assertThat(dto.getCountry()).isEqualTo("WO");
+        assertThat(dto.getOwnerName()).isEqualTo("UNKNOWN");
+        assertThat(dto.getInventorName()).isEqualTo("[A, B]");
+        assertThat(dto.getAbstractText()).isEmpty();
+        assertThat(dto.getLegalStatus()).isEqualTo("UNKNOWN");
+    }
+
+    @Test
+    void reports_error_and_missing_results() throws IOException {
+        SerpApiResponseParser.Page error = parse("{\"search_metadata\": {\"status\": \"Error\"}, \"error\": \"Invalid API key.\"}");
+        assertThat(error.error()).isEqualTo("Invalid API key.");
+        assertThat(error.results()).isNull();
+
+        assertThat(parse("")).isNull();
+    }
+
+    private SerpApiResponseParser.Page parse(String json) throws IOException {
+        return parser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a recorded-shape SerpAPI google_patents page (20 results, with
+ * metadata, figures, country status and summary blocks): the old
+ * Map tree + per-call ObjectMapper + convertValue path versus
+ * {@link SerpApiResponseParser}. Scores are per result.
+ *
+ * Not part of the unit test run. JMH forks a JVM, so it needs a real classpath:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *     com.example.demo.ip.client.SerpApiResponseParsingBenchmark
+ * </pre>
+ *
+ * gc.alloc.rate.norm in the output is the allocation per result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerpApiResponseParsingBenchmark {
+
+    private static final int RESULTS_PER_PAGE = 20;
+
+    private final ObjectMapper sharedMapper = new ObjectMapper();
+    private final SerpApiResponseParser parser = new SerpApiResponseParser(sharedMapper);
+    private byte[] payload;
+
+    @Setup
+    public void loadPayload() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/serpapi/google_patents_solar_panel.json")) {
+            payload = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESULTS_PER_PAGE)
+    public List<IPSearchResultDTO> streaming() throws IOException {
+        return parser.parse(new ByteArrayInputStream(payload)).results();
+    }
+
+    /**
+     * What ExternalPatentClient did before: the converter reads the whole body
+     * into a Map, then each result is converted into a second Map by a freshly
+     * created ObjectMapper and mapped by key lookups.
+     */
+    @Benchmark
+    @OperationsPerInvocation(RESULTS_PER_PAGE)
+    public List<IPSearchResultDTO> mapTree() throws IOException {
+        Map<String, Object> response = sharedMapper.readValue(new ByteArrayInputStream(payload),
+                new TypeReference<Map<String, Object>>() {
+                });
+
+        ObjectMapper mapper = new ObjectMapper();
+
+        List<Map<String, Object>> results = ((List<?>) response.get("organic_results")).stream()
+                .filter(Map.class::isInstance)
+                .map(o -> mapper.convertValue(o, new TypeReference<Map<String, Object>>() {
+                }))
+                .toList();
+
+        return results.stream()
+                .map(SerpApiResponseParsingBenchmark::mapToDto)
+                .toList();
+    }
+
+    private static IPSearchResultDTO mapToDto(Map<String, Object> patent) {
+
+        IPSearchResultDTO dto = new IPSearchResultDTO();
+
+        String publicationNumber = patent.get("publication_number") != null
+                ? patent.get("publication_number").toString()
+                : null;
+
+        dto.setTitle((String) patent.getOrDefault("title", "Untitled Patent"));
+        dto.setApplicationNumber(patent.get("application_number") != null
+                ? patent.get("application_number").toString()
+                : publicationNumber);
+        dto.setAssetType("PATENT");
+
+        String country = publicationNumber == null || publicationNumber.length() < 2
+                ? "UNKNOWN"
+                : publicationNumber.substring(0, 2).toUpperCase();
+        dto.setCountry(country.matches("[A-Z]{2}") ? country : "UNKNOWN");
+        dto.setLegalStatus(patent.get("grant_date") != null ? "GRANTED"
+                : patent.get("publication_date") != null ? "PUBLISHED"
+                : patent.get("filing_date") != null ? "FILED"
+                : "UNKNOWN");
+
+        dto.setOwnerName(patent.get("assignee") != null ? patent.get("assignee").toString() : "UNKNOWN");
+        dto.setInventorName(patent.get("inventor") != null ? patent.get("inventor").toString() : "UNKNOWN");
+        dto.setAbstractText(patent.get("snippet") != null ? patent.get("snippet").toString() : "");
+
+        dto.setFilingDate(normalizeDate(patent.get("filing_date")));
+        Object pubDate = patent.get("publication_date") != null ? patent.get("publication_date")
+                : patent.get("publication_date_raw");
+        dto.setPublicationDate(normalizeDate(pubDate));
+        dto.setPriorityDate(normalizeDate(patent.get("priority_date")));
+        dto.setGrantDate(normalizeDate(patent.get("grant_date")));
+
+        dto.setPatentLink(patent.get("patent_link") != null ? patent.get("patent_link").toString() : null);
+        dto.setPdfLink(patent.get("pdf") != null ? patent.get("pdf").toString() : null);
+        dto.setThumbnail(patent.get("thumbnail") != null ? patent.get("thumbnail").toString() : null);
+        dto.setReferenceSource("GOOGLE_PATENTS");
+
+        return dto;
+    }
+
+    private static String normalizeDate(Object value) {
+        if (value == null)
+            return null;
+
+        String date = value.toString().trim();
+
+        if (date.matches("\\d{4}-\\d{2}-\\d{2}"))
+            return date;
+        if (date.matches("\\d{4}-\\d{2}"))
+            return date + "-01";
+        if (date.matches("\\d{4}"))
+            return date + "-01-01";
+
+        return null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(SerpApiResponseParsingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.ip.client;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StaleWhileRevalidateCacheTest {
+
+    private static final List<IPSearchResultDTO> OLD = List.of(new IPSearchResultDTO("Old", "PATENT", "US1", "FILED"));
+    private static final List<IPSearchResultDTO> FRESH = List.of(new IPSearchResultDTO("Fresh", "PATENT", "US1", "GRANTED"));
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final ExternalPatentClient client = mock(ExternalPatentClient.class);
+    private SearchRefreshScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void stale_page_is_served_immediately_and_refreshed_in_background() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(client.fetchPatents(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return FRESH;
+        });
+        scheduler = new SearchRefreshScheduler(provider(), 2, 4, 60, System::nanoTime);
+        StaleWhileRevalidateCache cache = cache();
+        PatentSearchKey key = new PatentSearchKey("solar", 20, 0);
+        cache.put(key, OLD);
+
+        // Fresh: no refresh
+        assertThat(cache.get(key).get()).isSameAs(OLD);
+        assertThat(scheduler.getStats()).containsEntry("scheduled", 0L);
+
+        ticker.addAndGet(Duration.ofMinutes(61).toNanos());
+        assertThat(cache.get(key).get()).isSameAs(OLD);
+        // Second hit while the refresh is running does not start another
+        assertThat(cache.get(key).get()).isSameAs(OLD);
+        release.countDown();
+
+        awaitStat("refreshed", 1L);
+        assertThat(cache.get(key).get()).isSameAs(FRESH);
+        assertThat(scheduler.getStats()).containsEntry("scheduled", 1L);
+    }
+
+    @Test
+    void refreshes_beyond_the_concurrency_cap_or_the_budget_are_dropped() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(client.fetchPatents(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return FRESH;
+        });
+        AtomicLong nanos = new AtomicLong();
+        // One running, one queued, budget of three calls per minute
+        scheduler = new SearchRefreshScheduler(provider(), 1, 1, 3, nanos::get);
+        StaleWhileRevalidateCache cache = cache();
+
+        assertThat(scheduler.schedule(new PatentSearchKey("a", 20, 0), cache)).isTrue();
+        assertThat(scheduler.schedule(new PatentSearchKey("b", 20, 0), cache)).isTrue();
+        assertThat(scheduler.schedule(new PatentSearchKey("c", 20, 0), cache)).isFalse();
+        assertThat(scheduler.getStats()).containsEntry("skippedBusy", 1L);
+
+        release.countDown();
+        awaitStat("refreshed", 2L);
+
+        // "c" got its budget back when it was rejected, so one call is left
+        assertThat(scheduler.schedule(new PatentSearchKey("c", 20, 0), cache)).isTrue();
+        awaitStat("refreshed", 3L);
+        assertThat(scheduler.schedule(new PatentSearchKey("d", 20, 0), cache)).isFalse();
+        assertThat(scheduler.getStats()).containsEntry("skippedBudget", 1L);
+
+        // A third of a minute refills one call
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        assertThat(scheduler.schedule(new PatentSearchKey("d", 20, 0), cache)).isTrue();
+    }
+
+    private StaleWhileRevalidateCache cache() {
+        return new StaleWhileRevalidateCache("patent-search",
+                Caffeine.newBuilder().ticker(ticker::get).expireAfterWrite(Duration.ofHours(6)).build(),
+                Duration.ofHours(1), scheduler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<ExternalPatentClient> provider() {
+        ObjectProvider<ExternalPatentClient> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(client);
+        return provider;
+    }
+
+    private void awaitStat(String name, long expected) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Long.valueOf(expected).equals(scheduler.getStats().get(name)) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(scheduler.getStats()).containsEntry(name, expected);
+    }
+}
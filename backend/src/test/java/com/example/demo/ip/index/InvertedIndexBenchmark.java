@@ -0,0 +1,97 @@
+package com.example.demo.ip.index;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Latency benchmark for the in-memory LOCAL search index at 1M synthetic assets.
+ * Titles and abstracts are drawn from a 50k-term Zipf vocabulary, so term
+ * frequencies look like real text: a few terms occur almost everywhere,
+ * most are rare. Abstract lengths vary between 20 and 150 words.
+ *
+ * Not part of the unit test run:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.demo.ip.index.InvertedIndexBenchmark -Dexec.args="1000000"
+ * </pre>
+ *
+ * Give the JVM a few GB of heap (MAVEN_OPTS=-Xmx4g) for the full 1M run.
+ */
+public class InvertedIndexBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+    private static final int LIMIT = 60;
+
+    private static final int VOCABULARY = 50_000;
+
+    // Query words placed at fixed Zipf ranks: rank 10 is in roughly a third of
+    // all assets, rank 1000 in well under one percent
+    private static final Map<Integer, String> PLACED_WORDS = Map.of(
+            10, "system", 25, "battery", 40, "cooling", 60, "solar",
+            150, "turbine", 300, "blade", 800, "polymer", 1500, "graphene",
+            3000, "anode", 6000, "lithium");
+
+    private static final List<String> QUERIES = List.of(
+            "system", "solar", "battery cooling", "turbine blade polymer", "graphene anode lithium",
+            "solar battery system", "us0000012345");
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        InvertedIndex index = new InvertedIndex();
+        SplittableRandom random = new SplittableRandom(42);
+        String[] terms = new String[VOCABULARY];
+        double[] cumulative = new double[VOCABULARY];
+        double total = 0;
+        for (int rank = 1; rank <= VOCABULARY; rank++) {
+            terms[rank - 1] = PLACED_WORDS.getOrDefault(rank, "t" + rank);
+            total += 1.0 / rank;
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < VOCABULARY; i++) {
+            cumulative[i] /= total;
+        }
+
+        long startedAt = System.nanoTime();
+        for (long id = 1; id <= size; id++) {
+            index.index(id, words(random, terms, cumulative, 8),
+                    String.format("US%010dA1", id),
+                    words(random, terms, cumulative, 20 + random.nextInt(130)));
+        }
+        System.out.printf("Indexed %,d assets (%,d terms) in %.1f s%n",
+                index.size(), index.termCount(), (System.nanoTime() - startedAt) / 1e9);
+
+        System.out.printf("%-28s %10s %10s %10s%n", "query", "p50 ms", "p95 ms", "p99 ms");
+        for (String query : QUERIES) {
+            long[] samples = new long[ITERATIONS];
+            for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+                long t = System.nanoTime();
+                index.search(query, LIMIT);
+                if (i >= WARMUP) {
+                    samples[i - WARMUP] = System.nanoTime() - t;
+                }
+            }
+            Arrays.sort(samples);
+            System.out.printf("%-28s %10.3f %10.3f %10.3f%n", query,
+                    percentile(samples, 0.50), percentile(samples, 0.95), percentile(samples, 0.99));
+        }
+    }
+
+    private static String words(SplittableRandom random, String[] terms, double[] cumulative, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int idx = Arrays.binarySearch(cumulative, random.nextDouble());
+            sb.append(terms[Math.min(idx >= 0 ? idx : -idx - 1, terms.length - 1)]).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        int idx = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(idx, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.ip.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvertedIndexTest {
+
+    @Test
+    void ranks_documents_matching_more_and_rarer_terms_first() {
+        InvertedIndex index = new InvertedIndex();
+        index.index(1, "Solar panel mounting bracket", "A bracket for roofs");
+        index.index(2, "Solar battery cooling system", "Cooling of battery cells");
+        index.index(3, "Wind turbine blade", "Blade made of polymer");
+        index.index(4, "Battery housing", null);
+
+        assertThat(index.search("battery cooling", 10)).containsExactly(2L, 4L);
+        assertThat(index.search("solar", 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("the of", 10)).as("stop words only").isEmpty();
+        assertThat(index.search("graphene", 10)).isEmpty();
+    }
+
+    @Test
+    void limit_keeps_only_the_best_hits() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 50; id++) {
+            index.index(id, "sensor", id == 17 ? "sensor sensor sensor" : "other words here");
+        }
+
+        assertThat(index.search("sensor", 3)).hasSize(3).startsWith(17L);
+    }
+
+    @Test
+    void search_after_continues_from_the_cursor_without_gaps() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 25; id++) {
+            index.index(id, "valve", id % 3 == 0 ? "valve valve" : "body");
+        }
+
+        List<Long> paged = new ArrayList<>();
+        float afterScore = Float.POSITIVE_INFINITY;
+        long afterId = Long.MAX_VALUE;
+        List<InvertedIndex.Hit> page;
+        do {
+            page = index.searchAfter("valve", 4, afterScore, afterId);
+            for (InvertedIndex.Hit hit : page) {
+                paged.add(hit.id());
+                afterScore = hit.score();
+                afterId = hit.id();
+            }
+        } while (page.size() == 4);
+
+        assertThat(paged).isEqualTo(index.search("valve", 100)).hasSize(25);
+    }
+
+    @Test
+    void updates_and_removals_apply_incrementally() {
+        InvertedIndex index = new InvertedIndex();
+        index.index(10, "Drone camera gimbal");
+        index.index(5, "Camera lens coating");
+
+        // Replacing a document drops its old terms
+        index.index(10, "Drone brake steering");
+        assertThat(index.search("camera", 10)).containsExactly(5L);
+        assertThat(index.search("brake", 10)).containsExactly(10L);
+
+        index.remove(5);
+        assertThat(index.search("camera", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.termCount()).isEqualTo(3);
+    }
+
+    @Test
+    void pruned_search_returns_the_same_top_hits_as_exhaustive_scoring() {
+        String[] words = {"solar", "panel", "battery", "cooling", "turbine", "blade", "sensor", "valve",
+                "lens", "drone", "camera", "graphene", "anode", "laser", "pump", "gear"};
+        SplittableRandom random = new SplittableRandom(7);
+        InvertedIndex index = new InvertedIndex();
+
+        for (long id = 1; id <= 5_000; id++) {
+            StringBuilder text = new StringBuilder();
+            int length = 3 + random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                text.append(words[(int) (words.length * Math.pow(random.nextDouble(), 2))]).append(' ');
+            }
+            index.index(id, text.toString());
+        }
+        // Out-of-order updates and removals exercise the block bounds too
+        for (int i = 0; i < 500; i++) {
+            long id = 1 + random.nextInt(5_000);
+            if (i % 3 == 0) {
+                index.remove(id);
+            } else {
+                index.index(id, "graphene graphene laser");
+            }
+        }
+
+        for (String query : new String[] {"solar", "battery cooling", "graphene laser pump", "gear lens solar"}) {
+            for (int limit : new int[] {1, 10, 60}) {
+                assertThat(index.search(query, limit))
+                        .as("%s, limit %d", query, limit)
+                        .isEqualTo(index.searchExhaustive(query, limit));
+            }
+        }
+    }
+
+    @Test
+    void tokenizer_lowercases_and_splits_on_punctuation() {
+        assertThat(InvertedIndex.tokenize("US-2020/0123456 A1: The Neural-Network"))
+                .containsExactly("us", "2020", "0123456", "a1", "neural", "network");
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.demo.ip.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latency benchmark for LOCAL search: the old LIKE scan versus the tsvector/GIN
+ * query used by {@link IPAssetRepositoryCustomImpl} (word prefixes plus a
+ * trigram match on application numbers), at 100k and 1M assets.
+ *
+ * Not part of the unit test run. Uses the PostgreSQL 12+ instance given by
+ * bench.url, or starts an embedded one (not as root) when there is none:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.demo.ip.repository.IPAssetFullTextSearchBenchmark \
+ *     [-Dbench.url=jdbc:postgresql://localhost:5432/postgres -Dbench.user=postgres -Dbench.password=postgres] \
+ *     [-Dbench.iterations=200]
+ * </pre>
+ *
+ * Everything runs in a throw-away schema that is dropped afterwards.
+ */
+public class IPAssetFullTextSearchBenchmark {
+
+    private static final String SCHEMA = "ip_fts_bench";
+    private static final List<String> MIGRATIONS = List.of(
+            "db/vendor/postgresql/V2__ip_assets_full_text_search.sql",
+            "db/vendor/postgresql/V5__ip_assets_application_number_trigram.sql");
+
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 200);
+    private static final int WARMUP = Math.max(1, ITERATIONS / 10);
+    private static final int LIMIT = 60;
+
+    private static final List<String> QUERIES = List.of("solar", "battery cooling", "turb", "00000123");
+
+    private static final String LIKE_SEARCH = """
+            SELECT * FROM ip_assets
+            WHERE lower(title) LIKE ? OR lower(abstract_text) LIKE ? OR lower(application_number) LIKE ?
+            LIMIT ?
+            """;
+
+    private static final String FULL_TEXT_SEARCH = """
+            SELECT a.*
+            FROM ip_assets a, to_tsquery('english', ?) q
+            WHERE a.search_vector @@ q
+               OR lower(a.application_number) LIKE ?
+            ORDER BY ts_rank_cd(a.search_vector, q) DESC, a.id DESC
+            LIMIT ?
+            """;
+
+    private static final String SEED = """
+            INSERT INTO ip_assets (title, application_number, abstract_text, country, asset_type, legal_status)
+            SELECT v.w[1 + (i * 7) % v.n] || ' ' || v.w[1 + (i * 13) % v.n] || ' ' || v.w[1 + (i * 31) % v.n],
+                   'US' || lpad(i::text, 10, '0') || 'A1',
+                   repeat(v.w[1 + (i * 17) % v.n] || ' ' || v.w[1 + (i * 19) % v.n] || ' '
+                          || v.w[1 + (i * 23) % v.n] || ' ', 25),
+                   'US', 'PATENT', 'FILED'
+            FROM generate_series(1, ?) AS i,
+                 (SELECT ARRAY['solar', 'panel', 'battery', 'cooling', 'turbine', 'blade', 'wireless', 'antenna',
+                               'polymer', 'coating', 'engine', 'valve', 'sensor', 'neural', 'network', 'vaccine',
+                               'protein', 'display', 'lens', 'semiconductor', 'wafer', 'robot', 'gripper',
+                               'hydrogen', 'fuel', 'cell', 'drone', 'camera', 'brake', 'steering'] AS w,
+                         30 AS n) AS v
+            """;
+
+    public static void main(String[] args) throws Exception {
+        EmbeddedPostgres embedded = null;
+        String url = System.getProperty("bench.url");
+        String user = System.getProperty("bench.user", "postgres");
+        String password = System.getProperty("bench.password", "postgres");
+        if (url == null) {
+            embedded = EmbeddedPostgres.start();
+            url = embedded.getJdbcUrl("postgres", "postgres");
+        }
+
+        try (Connection con = DriverManager.getConnection(url, user, password)) {
+            System.out.println(con.getMetaData().getDatabaseProductName() + " "
+                    + con.getMetaData().getDatabaseProductVersion());
+            for (int size : new int[] {100_000, 1_000_000}) {
+                prepareSchema(con, size);
+                System.out.printf("%n== %,d assets ==%n", size);
+                System.out.printf("%-20s %-6s %10s %10s %10s%n", "query", "mode", "p50 ms", "p95 ms", "p99 ms");
+                for (String query : QUERIES) {
+                    report(query, "LIKE", measure(con, LIKE_SEARCH, query, true));
+                    report(query, "FTS", measure(con, FULL_TEXT_SEARCH, query, false));
+                }
+            }
+        } finally {
+            try (Connection con = DriverManager.getConnection(url, user, password);
+                 Statement st = con.createStatement()) {
+                st.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            }
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private static void prepareSchema(Connection con, int size) throws Exception {
+        try (Statement st = con.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            st.execute("CREATE SCHEMA " + SCHEMA);
+            st.execute("SET search_path TO " + SCHEMA);
+
+            // The migrations have no semicolons inside statements, so a plain split is enough
+            for (String migration : MIGRATIONS) {
+                for (String sql : readMigration(migration).split(";")) {
+                    if (!sql.isBlank()) {
+                        st.execute(sql);
+                    }
+                }
+            }
+        }
+
+        try (PreparedStatement ps = con.prepareStatement(SEED)) {
+            ps.setInt(1, size);
+            ps.executeUpdate();
+        }
+
+        try (Statement st = con.createStatement()) {
+            st.execute("ANALYZE ip_assets");
+        }
+    }
+
+    private static long[] measure(Connection con, String sql, String query, boolean like) throws SQLException {
+        String keyword = query.toLowerCase();
+        long[] samples = new long[ITERATIONS];
+
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            if (like) {
+                String pattern = "%" + keyword + "%";
+                ps.setString(1, pattern);
+                ps.setString(2, pattern);
+                ps.setString(3, pattern);
+                ps.setInt(4, LIMIT);
+            } else {
+                ps.setString(1, IPAssetRepositoryCustomImpl.prefixQuery(keyword));
+                ps.setString(2, "%" + keyword + "%");
+                ps.setInt(3, LIMIT);
+            }
+
+            for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+                long startedAt = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        // drain the page like the application does
+                    }
+                }
+                if (i >= WARMUP) {
+                    samples[i - WARMUP] = System.nanoTime() - startedAt;
+                }
+            }
+        }
+
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static void report(String query, String mode, long[] sortedNanos) {
+        System.out.printf("%-20s %-6s %10.2f %10.2f %10.2f%n", query, mode,
+                percentile(sortedNanos, 0.50), percentile(sortedNanos, 0.95), percentile(sortedNanos, 0.99));
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        int idx = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(idx, 0)] / 1_000_000.0;
+    }
+
+    private static String readMigration(String migration) throws Exception {
+        try (InputStream in = IPAssetFullTextSearchBenchmark.class.getClassLoader().getResourceAsStream(migration)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration not found on classpath: " + migration);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
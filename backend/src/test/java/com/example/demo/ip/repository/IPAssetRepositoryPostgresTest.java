@@ -0,0 +1,128 @@
+package com.example.demo.ip.repository;
+
+import com.example.demo.ip.dto.SearchCursor;
+import com.example.demo.ip.entity.IPAsset;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * The PostgreSQL paths of {@link IPAssetRepositoryCustomImpl} (tsvector search,
+ * trigram application-number match, INSERT ... ON CONFLICT) against a real
+ * PostgreSQL started from downloaded binaries, with the vendor migrations
+ * applied by Flyway.
+ *
+ * PostgreSQL refuses to run as root, so the tests are skipped there.
+ */
+public class IPAssetRepositoryPostgresTest {
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+    private static IPAssetRepositoryCustomImpl repository;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        assumeFalse("root".equals(System.getProperty("user.name")), "PostgreSQL cannot run as root");
+
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        repository = new IPAssetRepositoryCustomImpl(jdbcTemplate);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @BeforeEach
+    void clear() {
+        jdbcTemplate.update("DELETE FROM ip_assets");
+    }
+
+    @Test
+    void words_match_as_prefixes_and_application_numbers_anywhere() {
+        repository.insertIgnoringExisting(List.of(
+                asset("US20230123456A1", "Graphene battery electrode", "Anode made of layered carbon"),
+                asset("US20210999999B2", "Solar panel mount", "Bracket for graphite sheets"),
+                asset("EP3000000A1", "Wind turbine blade", "Composite blade with cooling channels")));
+
+        assertThat(numbers("graph")).containsExactly("US20230123456A1", "US20210999999B2");
+        assertThat(numbers("phene")).as("no mid-word matches").isEmpty();
+        assertThat(numbers("cooled blades")).as("stemmed, every word required").containsExactly("EP3000000A1");
+        assertThat(numbers("battery blade")).isEmpty();
+        assertThat(numbers("0123456")).containsExactly("US20230123456A1");
+        assertThat(numbers("us2021")).containsExactly("US20210999999B2");
+        assertThat(numbers("!(:* | &")).as("tsquery syntax is not interpreted").isEmpty();
+    }
+
+    @Test
+    void title_hits_rank_first_and_keyset_pages_cover_every_hit_once() {
+        List<IPAsset> assets = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            assets.add(asset("US" + i, i % 2 == 0 ? "Sensor " + i : "Other " + i, "sensor " + "x".repeat(500)));
+        }
+        repository.insertIgnoringExisting(assets);
+
+        List<String> seen = new ArrayList<>();
+        SearchCursor after = null;
+        List<IPAssetSearchHit> page;
+        do {
+            page = repository.searchFullText("sensor", after, 0, 3);
+            page.forEach(hit -> seen.add(hit.applicationNumber()));
+            if (!page.isEmpty()) {
+                IPAssetSearchHit last = page.get(page.size() - 1);
+                after = SearchCursor.decode(new SearchCursor(last.rank(), last.id()).encode());
+            }
+        } while (page.size() == 3);
+
+        assertThat(seen).hasSize(7).doesNotHaveDuplicates();
+        assertThat(seen.subList(0, 4)).containsExactly("US6", "US4", "US2", "US0");
+    }
+
+    @Test
+    void insert_on_conflict_returns_ids_of_the_new_rows_only() {
+        Map<String, Long> first = repository.insertIgnoringExisting(List.of(asset("US1", "One", null)));
+
+        Map<String, Long> second = repository.insertIgnoringExisting(List.of(
+                asset("US1", "One again", null),
+                asset("US2", "Two", null),
+                asset("US2", "Two again", null)));
+
+        assertThat(second).containsOnlyKeys("US2");
+        assertThat(second.get("US2")).isNotEqualTo(first.get("US1"));
+        assertThat(jdbcTemplate.queryForObject("SELECT title FROM ip_assets WHERE application_number = 'US2'",
+                String.class)).isEqualTo("Two");
+    }
+
+    private static List<String> numbers(String query) {
+        return repository.searchFullText(query, null, 0, 10).stream().map(IPAssetSearchHit::applicationNumber).toList();
+    }
+
+    private static IPAsset asset(String number, String title, String abstractText) {
+        IPAsset asset = new IPAsset();
+        asset.setApplicationNumber(number);
+        asset.setTitle(title);
+        asset.setAbstractText(abstractText);
+        asset.setAssetType("PATENT");
+        asset.setLegalStatus("FILED");
+        return asset;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.ip.repository;
+
+import com.example.demo.ip.dto.SearchCursor;
+import com.example.demo.ip.entity.IPAsset;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class IPAssetRepositoryTest {
+
+    @Autowired
+    private IPAssetRepository repository;
+
+    @Test
+    void full_text_search_falls_back_to_ranked_like_on_h2() {
+        repository.save(asset("US100", "Battery cooling system", "A solar array feeding a battery"));
+        repository.save(asset("US200", "Solar panel mount", "Mounting bracket"));
+        repository.save(asset("US300", "Wind turbine blade", "Composite blade"));
+
+        List<IPAssetSearchHit> results = repository.searchFullText("  SOLAR ", null, 0, 10);
+
+        assertThat(results).extracting(IPAssetSearchHit::applicationNumber)
+                .containsExactly("US200", "US100");
+        assertThat(repository.searchFullText("us3", null, 0, 10)).extracting(IPAssetSearchHit::applicationNumber)
+                .containsExactly("US300");
+        assertThat(repository.searchFullText("solar", null, 0, 1)).hasSize(1);
+    }
+
+    @Test
+    void keyset_pages_cover_every_hit_once_and_project_a_snippet() {
+        for (int i = 0; i < 7; i++) {
+            repository.save(asset("US" + i, i % 2 == 0 ? "Sensor " + i : "Other " + i, "sensor " + "x".repeat(1000)));
+        }
+
+        List<String> seen = new ArrayList<>();
+        SearchCursor after = null;
+        List<IPAssetSearchHit> page;
+        do {
+            page = repository.searchFullText("sensor", after, 0, 3);
+            page.forEach(hit -> seen.add(hit.applicationNumber()));
+            if (!page.isEmpty()) {
+                IPAssetSearchHit last = page.get(page.size() - 1);
+                after = SearchCursor.decode(new SearchCursor(last.rank(), last.id()).encode());
+            }
+        } while (page.size() == 3);
+
+        // Title hits (even numbers) first, newest first within a rank
+        assertThat(seen).containsExactly("US6", "US4", "US2", "US0", "US5", "US3", "US1");
+        assertThat(repository.searchFullText("sensor", null, 3, 3)).extracting(IPAssetSearchHit::applicationNumber)
+                .containsExactly("US0", "US5", "US3");
+        assertThat(repository.searchFullText("sensor", null, 0, 1).get(0).abstractSnippet()).hasSize(300);
+    }
+
+    @Test
+    void insert_ignoring_existing_returns_ids_of_the_new_rows_only() {
+        IPAsset stored = repository.save(asset("US100", "Battery cooling system", "Stored earlier"));
+        IPAsset fresh = asset("US200", "Solar panel mount", "Mounting bracket");
+        fresh.setFilingDate(LocalDate.of(2021, 3, 4));
+
+        Map<String, Long> inserted = repository.insertIgnoringExisting(List.of(
+                asset("US100", "Battery cooling system (again)", "Duplicate"),
+                fresh,
+                asset("US300", "Wind turbine blade", "Composite blade"),
+                asset("US300", "Wind turbine blade (repeat)", "Repeated in the batch")));
+
+        assertThat(inserted).containsOnlyKeys("US200", "US300");
+        assertThat(inserted.values()).doesNotContainNull().doesNotHaveDuplicates().doesNotContain(stored.getId());
+
+        IPAsset loaded = repository.findById(inserted.get("US200")).orElseThrow();
+        assertThat(loaded.getApplicationNumber()).isEqualTo("US200");
+        assertThat(loaded.getTitle()).isEqualTo("Solar panel mount");
+        assertThat(loaded.getFilingDate()).isEqualTo(LocalDate.of(2021, 3, 4));
+        assertThat(loaded.getUpdatedOn()).isNotNull();
+        assertThat(repository.findById(inserted.get("US300")).orElseThrow().getTitle()).isEqualTo("Wind turbine blade");
+        assertThat(repository.findById(stored.getId()).orElseThrow().getTitle()).isEqualTo("Battery cooling system");
+        assertThat(repository.count()).isEqualTo(3);
+    }
+
+    private static IPAsset asset(String applicationNumber, String title, String abstractText) {
+        IPAsset asset = new IPAsset();
+        asset.setApplicationNumber(applicationNumber);
+        asset.setTitle(title);
+        asset.setAbstractText(abstractText);
+        return asset;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.config.OutboundDeadline;
+import com.example.demo.ip.client.TrademarkClient;
+import com.example.demo.ip.dto.FederatedSearchResponse;
+import com.example.demo.ip.dto.FederatedSearchResponse.Source;
+import com.example.demo.ip.dto.FederatedSearchResponse.SourceReport;
+import com.example.demo.ip.dto.FederatedSearchResponse.Status;
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.monitoring.MonitoringService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FederatedSearchServiceTest {
+
+    private final IPSearchService ipSearchService = mock(IPSearchService.class);
+    private final TrademarkClient trademarkClient = mock(TrademarkClient.class);
+    private final CountDownLatch never = new CountDownLatch(1);
+    private FederatedSearchService service;
+
+    @AfterEach
+    void tearDown() {
+        never.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void a_source_past_its_deadline_is_cut_off_and_the_others_are_returned() {
+        when(ipSearchService.searchPatentSource("solar", 0)).thenReturn(List.of(result("US-1", null)));
+        when(ipSearchService.searchLocalSource("solar")).thenReturn(List.of(result("US-2", 7L)));
+        when(trademarkClient.searchTrademarks(anyString(), anyInt())).thenAnswer(invocation -> {
+            never.await();
+            return List.of(result("TM-1", null));
+        });
+        service = service(3);
+
+        long start = System.nanoTime();
+        FederatedSearchResponse response = service.search("solar");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(response.results()).extracting(IPSearchResultDTO::getApplicationNumber).containsExactly("US-1", "US-2");
+        assertThat(response.sources()).extracting(SourceReport::source, SourceReport::status).containsExactly(
+                tuple(Source.PATENTS, Status.OK),
+                tuple(Source.TRADEMARKS, Status.TIMEOUT),
+                tuple(Source.LOCAL, Status.OK));
+        assertThat(response.sources().get(1).latencyMs()).isGreaterThanOrEqualTo(300);
+    }
+
+    @Test
+    void results_are_deduplicated_by_application_number_and_failures_reported() {
+        when(ipSearchService.searchPatentSource("solar", 0))
+                .thenReturn(List.of(result("US 17/123,456", null), result(null, null)));
+        when(ipSearchService.searchLocalSource("solar"))
+                .thenReturn(List.of(result("us17123456", 7L), result("US-9", 9L)));
+        when(trademarkClient.searchTrademarks(anyString(), anyInt())).thenThrow(new IllegalStateException("down"));
+        service = service(3);
+
+        FederatedSearchResponse response = service.search("solar");
+
+        // First source wins; results without an application number are kept as they are
+        assertThat(response.results()).extracting(IPSearchResultDTO::getApplicationNumber)
+                .containsExactly("US 17/123,456", null, "US-9");
+        assertThat(response.sources()).extracting(SourceReport::status)
+                .containsExactly(Status.OK, Status.FAILED, Status.OK);
+        assertThat(response.sources()).extracting(SourceReport::resultCount).containsExactly(2, 0, 2);
+    }
+
+    @Test
+    void a_source_with_no_free_worker_is_reported_rejected() {
+        when(ipSearchService.searchPatentSource("solar", 0)).thenAnswer(invocation -> {
+            never.await();
+            return List.of();
+        });
+        when(trademarkClient.searchTrademarks(anyString(), anyInt())).thenAnswer(invocation -> {
+            never.await();
+            return List.of();
+        });
+        service = service(2);
+
+        FederatedSearchResponse response = service.search("solar");
+
+        // Both workers are held by the slow sources, so LOCAL never runs
+        assertThat(response.sources()).extracting(SourceReport::status)
+                .containsExactly(Status.TIMEOUT, Status.TIMEOUT, Status.REJECTED);
+    }
+
+    @Test
+    void a_timed_out_source_gives_its_worker_back_at_the_deadline() throws Exception {
+        when(ipSearchService.searchPatentSource("solar", 0)).thenReturn(List.of());
+        when(ipSearchService.searchLocalSource("solar")).thenReturn(List.of());
+        // Stands in for an HTTP read that the source's deadline cuts off
+        when(trademarkClient.searchTrademarks(anyString(), anyInt())).thenAnswer(invocation -> {
+            long giveUp = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!OutboundDeadline.hasPassed() && System.nanoTime() < giveUp) {
+                Thread.sleep(10);
+            }
+            return List.of();
+        });
+        service = service(3);
+
+        assertThat(service.search("solar").sources()).extracting(SourceReport::status)
+                .containsExactly(Status.OK, Status.TIMEOUT, Status.OK);
+
+        // The worker is free again well before a 10s read timeout would have let go of it
+        Thread.sleep(200);
+        assertThat(service.search("solar").sources()).extracting(SourceReport::status)
+                .containsExactly(Status.OK, Status.TIMEOUT, Status.OK);
+    }
+
+    private FederatedSearchService service(int threads) {
+        return new FederatedSearchService(ipSearchService, trademarkClient, mock(MonitoringService.class),
+                Duration.ofSeconds(1), Duration.ofMillis(300), Duration.ofSeconds(1), threads, 0, System::nanoTime);
+    }
+
+    private static IPSearchResultDTO result(String applicationNumber, Long id) {
+        IPSearchResultDTO dto = new IPSearchResultDTO();
+        dto.setId(id);
+        dto.setApplicationNumber(applicationNumber);
+        return dto;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.ip.entity.IPAsset;
+import com.example.demo.ip.index.LocalSearchIndex;
+import com.example.demo.ip.repository.IPAssetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IPAssetBatchWriterTest {
+
+    private IPAssetRepository repository;
+    private IPAssetBatchWriter writer;
+
+    @BeforeEach
+    void setup() {
+        repository = Mockito.mock(IPAssetRepository.class);
+        writer = new IPAssetBatchWriter(repository, Mockito.mock(LocalSearchIndex.class));
+    }
+
+    @Test
+    void persist_uses_one_lookup_and_one_insert_for_the_whole_batch() {
+        List<IPSearchResultDTO> results = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            results.add(new IPSearchResultDTO("Patent " + i, "PATENT", "US" + i, null));
+        }
+
+        when(repository.findByApplicationNumberIn(any())).thenReturn(List.of(asset(1L, "US0")));
+        when(repository.insertIgnoringExisting(anyList())).thenAnswer(inv -> {
+            List<IPAsset> assets = inv.getArgument(0);
+            return Map.of(assets.get(0).getApplicationNumber(), 100L);
+        });
+
+        writer.persist(results);
+
+        verify(repository, times(1)).insertIgnoringExisting(anyList());
+        // Initial lookup plus one re-read of the rows that lost the insert race
+        verify(repository, times(2)).findByApplicationNumberIn(any());
+        verify(repository, never()).findByApplicationNumber(anyString());
+        verify(repository, never()).save(any());
+
+        assertThat(results.get(0).getId()).isEqualTo(1L);
+        assertThat(results.get(1).getId()).isEqualTo(100L);
+        assertThat(results.get(1).getLegalStatus()).isEqualTo("FILED");
+    }
+
+    @Test
+    void persist_skips_the_insert_when_every_result_is_known() {
+        List<IPSearchResultDTO> results = List.of(new IPSearchResultDTO("Patent", "PATENT", "US1", null));
+        when(repository.findByApplicationNumberIn(Set.of("US1"))).thenReturn(List.of(asset(7L, "US1")));
+
+        writer.persist(results);
+
+        verify(repository, never()).insertIgnoringExisting(anyList());
+        assertThat(results.get(0).getId()).isEqualTo(7L);
+    }
+
+    private static IPAsset asset(Long id, String applicationNumber) {
+        IPAsset asset = new IPAsset();
+        asset.setId(id);
+        asset.setApplicationNumber(applicationNumber);
+        return asset;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+public class IPAssetWriteBehindQueueTest {
+
+    @Test
+    void shutdown_flushes_everything_that_was_queued() throws Exception {
+        IPAssetBatchWriter writer = Mockito.mock(IPAssetBatchWriter.class);
+        List<String> persisted = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> {
+            List<IPSearchResultDTO> batch = inv.getArgument(0);
+            batch.forEach(dto -> persisted.add(dto.getApplicationNumber()));
+            return null;
+        }).when(writer).persist(anyList());
+
+        // Long flush interval so entries are still queued when shutdown starts
+        IPAssetWriteBehindQueue queue = new IPAssetWriteBehindQueue(writer, 1000, 50, 60_000, 10);
+
+        List<IPSearchResultDTO> results = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            results.add(new IPSearchResultDTO("Patent " + i, "PATENT", "US" + i, null));
+        }
+        results.add(new IPSearchResultDTO("No number", "PATENT", null, null));
+
+        queue.submit(results);
+        queue.shutdown();
+
+        assertThat(persisted).hasSize(120).doesNotHaveDuplicates();
+        assertThat(results.get(0).getId()).as("caller DTOs are not mutated").isNull();
+        assertThat(queue.getStats()).containsEntry("queueDepth", 0);
+    }
+
+    @Test
+    void full_queue_makes_the_caller_persist_its_overflow() throws Exception {
+        IPAssetBatchWriter writer = Mockito.mock(IPAssetBatchWriter.class);
+        CountDownLatch release = new CountDownLatch(1);
+        // Stall the background worker so the single-slot queue stays full
+        doAnswer(inv -> {
+            if (Thread.currentThread().getName().equals("ip-asset-write-behind")) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(writer).persist(anyList());
+
+        IPAssetWriteBehindQueue queue = new IPAssetWriteBehindQueue(writer, 1, 10, 60_000, 1);
+
+        List<IPSearchResultDTO> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(new IPSearchResultDTO("Patent " + i, "PATENT", "US" + i, null));
+        }
+
+        queue.submit(results);
+
+        assertThat((long) queue.getStats().get("callerRunsFlushes")).isEqualTo(1L);
+        release.countDown();
+        queue.shutdown();
+    }
+
+    @Test
+    void follow_up_runs_on_the_worker_after_the_results_are_persisted() throws Exception {
+        IPAssetBatchWriter writer = Mockito.mock(IPAssetBatchWriter.class);
+        List<String> persisted = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> {
+            List<IPSearchResultDTO> batch = inv.getArgument(0);
+            batch.forEach(dto -> persisted.add(dto.getApplicationNumber()));
+            return null;
+        }).when(writer).persist(anyList());
+
+        // Batches of 10, so the submission is spread over several flushes
+        IPAssetWriteBehindQueue queue = new IPAssetWriteBehindQueue(writer, 1000, 10, 20, 10);
+
+        List<IPSearchResultDTO> results = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            results.add(new IPSearchResultDTO("Patent " + i, "PATENT", "US" + i, null));
+        }
+
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicReference<String> thread = new AtomicReference<>();
+        AtomicReference<Integer> persistedBefore = new AtomicReference<>();
+        queue.submit(results, () -> {
+            thread.set(Thread.currentThread().getName());
+            persistedBefore.set(persisted.size());
+            ran.countDown();
+        });
+
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(thread.get()).isEqualTo("ip-asset-write-behind");
+        assertThat(persistedBefore.get()).isEqualTo(25);
+        queue.shutdown();
+    }
+
+    @Test
+    void follow_up_is_skipped_when_the_caller_writes_its_overflow() throws Exception {
+        IPAssetBatchWriter writer = Mockito.mock(IPAssetBatchWriter.class);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            if (Thread.currentThread().getName().equals("ip-asset-write-behind")) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(writer).persist(anyList());
+
+        IPAssetWriteBehindQueue queue = new IPAssetWriteBehindQueue(writer, 1, 10, 50, 1);
+
+        List<IPSearchResultDTO> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(new IPSearchResultDTO("Patent " + i, "PATENT", "US" + i, null));
+        }
+
+        List<String> ranOn = new CopyOnWriteArrayList<>();
+        queue.submit(results, () -> ranOn.add(Thread.currentThread().getName()));
+        release.countDown();
+        queue.shutdown();
+
+        assertThat(ranOn).isEmpty();
+        assertThat((long) queue.getStats().get("skippedFollowUps")).isEqualTo(1L);
+    }
+}
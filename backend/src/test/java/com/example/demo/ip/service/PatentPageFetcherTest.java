@@ -0,0 +1,145 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.ip.client.ExternalPatentClient;
+import com.example.demo.ip.client.ExternalSearchCircuitBreaker;
+import com.example.demo.ip.client.PatentSearchKey;
+import com.example.demo.ip.client.SearchRequestCoalescer;
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.monitoring.PlatformMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PatentPageFetcherTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.PATENT_SEARCH_CACHE);
+    private final ExternalPatentClient client = mock(ExternalPatentClient.class);
+    private PatentPageFetcher fetcher;
+
+    @AfterEach
+    void tearDown() {
+        if (fetcher != null) {
+            fetcher.shutdown();
+        }
+    }
+
+    @Test
+    void first_page_prefetches_only_the_next_page_which_then_serves_load_more() {
+        stubPages(Map.of(0, PAGE_SIZE, 20, PAGE_SIZE, 40, PAGE_SIZE));
+        fetcher = fetcher(60);
+
+        List<IPSearchResultDTO> first = fetcher.fetchPage("solar", PAGE_SIZE, 0);
+        fetcher.prefetchAfter("solar", PAGE_SIZE, 0, first.size(), 10);
+        awaitStat("fetched", 1L);
+
+        assertThat(fetcher.isPageCached("solar", PAGE_SIZE, 1)).isTrue();
+        assertThat(fetcher.isPageCached("solar", PAGE_SIZE, 2)).isFalse();
+
+        List<IPSearchResultDTO> second = fetcher.fetchPage("solar", PAGE_SIZE, 1);
+        assertThat(second).extracting(IPSearchResultDTO::getTitle).startsWith("Patent 20");
+        assertThat(fetcher.getStats()).containsEntry("used", 1L);
+    }
+
+    @Test
+    void paging_users_get_deeper_prefetch_that_stops_at_the_last_page() {
+        // Page 2 is short, so page 3 must never be requested
+        stubPages(Map.of(0, PAGE_SIZE, 20, PAGE_SIZE, 40, 5, 60, PAGE_SIZE));
+        fetcher = fetcher(60);
+
+        fetcher.prefetchAfter("solar", PAGE_SIZE, 1, PAGE_SIZE, 10);
+        awaitStat("fetched", 1L);
+        awaitStat("running", 0);
+
+        verify(client).searchPatents("solar", PAGE_SIZE, 40);
+        verify(client, never()).searchPatents("solar", PAGE_SIZE, 60);
+
+        // Nothing to prefetch after a short page
+        fetcher.prefetchAfter("solar", PAGE_SIZE, 2, 5, 10);
+        assertThat(fetcher.getStats()).containsEntry("scheduled", 1L);
+    }
+
+    @Test
+    void prefetch_stops_when_the_call_budget_is_spent() {
+        stubPages(Map.of(0, PAGE_SIZE, 20, PAGE_SIZE, 40, PAGE_SIZE, 60, PAGE_SIZE));
+        fetcher = fetcher(1);
+
+        fetcher.prefetchAfter("solar", PAGE_SIZE, 1, PAGE_SIZE, 10);
+        awaitStat("skippedBudget", 1L);
+
+        verify(client, times(1)).searchPatents(anyString(), anyInt(), anyInt());
+        assertThat(fetcher.isPageCached("solar", PAGE_SIZE, 2)).isTrue();
+        assertThat(fetcher.isPageCached("solar", PAGE_SIZE, 3)).isFalse();
+    }
+
+    @Test
+    void a_prefetch_that_sends_no_request_gives_its_budget_token_back() {
+        // Without an API key the real client skips the call
+        ExternalPatentClient unavailable = new ExternalPatentClient(null, new SearchRequestCoalescer(),
+                new ExternalSearchCircuitBreaker(20, 10, 50, 30_000, 3), null, null,
+                new PlatformMetrics(new SimpleMeterRegistry()));
+        when(client.searchPatents(eq("solar"), eq(PAGE_SIZE), anyInt())).thenAnswer(invocation ->
+                unavailable.searchPatents("solar", PAGE_SIZE, invocation.getArgument(2)));
+        fetcher = fetcher(1);
+
+        fetcher.prefetchAfter("solar", PAGE_SIZE, 0, PAGE_SIZE, 10);
+        awaitStat("skippedUnavailable", 1L);
+        awaitStat("running", 0);
+
+        // The single token is still there for a prefetch once SerpAPI is back
+        stubPages(Map.of(20, PAGE_SIZE));
+        fetcher.prefetchAfter("solar", PAGE_SIZE, 0, PAGE_SIZE, 10);
+        awaitStat("fetched", 1L);
+        assertThat(fetcher.getStats()).containsEntry("skippedBudget", 0L);
+    }
+
+    private PatentPageFetcher fetcher(int callsPerMinute) {
+        return new PatentPageFetcher(client, cacheManager, true, 2, 2, 8, callsPerMinute,
+                Duration.ofHours(6), System::nanoTime);
+    }
+
+    /**
+     * Stubs searchPatents with the given result count per start offset and,
+     * like the @Cacheable proxy in front of the real client, caches non-empty pages.
+     */
+    private void stubPages(Map<Integer, Integer> resultsByStart) {
+        Cache cache = cacheManager.getCache(CacheConfig.PATENT_SEARCH_CACHE);
+        when(client.searchPatents(eq("solar"), eq(PAGE_SIZE), anyInt())).thenAnswer(invocation -> {
+            int start = invocation.getArgument(2);
+            List<IPSearchResultDTO> page = IntStream.range(start, start + resultsByStart.getOrDefault(start, 0))
+                    .mapToObj(n -> new IPSearchResultDTO("Patent " + n, "PATENT", "US" + n, "FILED"))
+                    .toList();
+            if (!page.isEmpty()) {
+                cache.put(new PatentSearchKey("solar", PAGE_SIZE, start), page);
+            }
+            return page;
+        });
+    }
+
+    private void awaitStat(String name, Object expected) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!expected.equals(fetcher.getStats().get(name)) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(fetcher.getStats()).containsEntry(name, expected);
+    }
+}
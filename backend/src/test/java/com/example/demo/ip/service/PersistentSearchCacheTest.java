@@ -0,0 +1,102 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.ip.entity.IPAsset;
+import com.example.demo.ip.entity.SearchResultCacheEntry;
+import com.example.demo.ip.repository.IPAssetRepository;
+import com.example.demo.ip.repository.SearchResultCacheRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cache writes use their own transactions, so the test must not hold one open
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PersistentSearchCacheTest {
+
+    @Autowired
+    private SearchResultCacheRepository cacheRepository;
+
+    @Autowired
+    private IPAssetRepository assetRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PersistentSearchCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PersistentSearchCache(cacheRepository, assetRepository, transactionManager, true, Duration.ofDays(7));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        cacheRepository.deleteAll();
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    void returns_persisted_results_in_original_order_for_the_normalized_query() {
+        assetRepository.saveAll(List.of(asset("US1"), asset("US2"), asset("US3")));
+
+        cache.put("Solar  Panel", 60, List.of(result("US3"), result("US1"), result("US2")));
+
+        assertThat(cache.get(" solar panel ", 60)).extracting(IPAsset::getApplicationNumber)
+                .containsExactly("US3", "US1", "US2");
+        // Another limit is another search
+        assertThat(cache.get("solar panel", 20)).isNull();
+    }
+
+    @Test
+    void misses_while_some_results_are_not_persisted_yet() {
+        assetRepository.save(asset("EP1"));
+
+        cache.put("wind turbine", 60, List.of(result("EP1"), result("EP2")));
+
+        assertThat(cache.get("wind turbine", 60)).isNull();
+        assertThat(cache.getStats()).containsEntry("incomplete", 1L);
+    }
+
+    @Test
+    void expired_entries_are_not_served_and_get_purged() {
+        assetRepository.save(asset("CN1"));
+        cacheRepository.save(SearchResultCacheEntry.builder()
+                .queryHash("0".repeat(64))
+                .queryText("old query")
+                .resultLimit(60)
+                .applicationNumbers("CN1")
+                .resultCount(1)
+                .fetchedAt(LocalDateTime.now().minusDays(8))
+                .build());
+        cache.put("fresh query", 60, List.of(result("CN1")));
+
+        cache.purgeExpired();
+
+        assertThat(cacheRepository.findById("0".repeat(64))).isEmpty();
+        assertThat(cache.get("fresh query", 60)).hasSize(1);
+        assertThat(cache.getStats()).containsEntry("purged", 1L);
+    }
+
+    private static IPAsset asset(String applicationNumber) {
+        IPAsset asset = new IPAsset();
+        asset.setApplicationNumber(applicationNumber);
+        asset.setTitle("Patent " + applicationNumber);
+        return asset;
+    }
+
+    private static IPSearchResultDTO result(String applicationNumber) {
+        return new IPSearchResultDTO("Patent " + applicationNumber, "PATENT", applicationNumber, "FILED");
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.ip.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryCanonicalizerTest {
+
+    private final QueryCanonicalizer canonicalizer = new QueryCanonicalizer(true, 100, Duration.ofHours(1));
+
+    @Test
+    void case_whitespace_and_word_order_variants_share_one_form() {
+        assertThat(canonicalizer.canonicalForm("Solar Panel")).isEqualTo("panel solar");
+        assertThat(canonicalizer.canonicalForm("solar panel ")).isEqualTo("panel solar");
+        assertThat(canonicalizer.canonicalForm(" panel\tSOLAR")).isEqualTo("panel solar");
+    }
+
+    @Test
+    void folds_unicode_compatibility_forms_and_case() {
+        // Full-width letters, non-breaking space, "ﬁ" ligature, sharp s
+        assertThat(canonicalizer.canonicalForm("ＳＯＬＡＲ ﬁlm")).isEqualTo("film solar");
+        assertThat(canonicalizer.canonicalForm("Straße")).isEqualTo(canonicalizer.canonicalForm("STRASSE"));
+    }
+
+    @Test
+    void keeps_order_and_operators_of_structured_queries() {
+        assertThat(canonicalizer.canonicalForm("Solar OR Wind")).isEqualTo("solar OR wind");
+        assertThat(canonicalizer.canonicalForm("\"Solar Panel\" mount")).isEqualTo("\"solar panel\" mount");
+        assertThat(canonicalizer.canonicalForm("battery -Lithium")).isEqualTo("battery -lithium");
+
+        QueryCanonicalizer unsorted = new QueryCanonicalizer(false, 100, Duration.ofHours(1));
+        assertThat(unsorted.canonicalForm("Solar  Panel")).isEqualTo("solar panel");
+    }
+
+    @Test
+    void reports_key_hit_rates_before_and_after_canonicalization() {
+        for (String query : List.of("Solar Panel", "solar panel ", "panel solar", "Solar Panel")) {
+            canonicalizer.recordSearch(query, canonicalizer.canonicalize(query));
+        }
+        // Canonicalizing alone (later pages, federated sources) is not a lookup
+        canonicalizer.canonicalize("Solar Panel");
+
+        // Literal keys: only the repeated "Solar Panel" hits; canonical: all but the first
+        assertThat(canonicalizer.getStats())
+                .containsEntry("lookups", 4L)
+                .containsEntry("literalKeyHitRate", 0.25)
+                .containsEntry("canonicalKeyHitRate", 0.75);
+    }
+}
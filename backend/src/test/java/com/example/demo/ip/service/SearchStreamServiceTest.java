@@ -0,0 +1,123 @@
+package com.example.demo.ip.service;
+
+import com.example.demo.ip.client.TrademarkClient;
+import com.example.demo.ip.dto.FederatedSearchResponse.Source;
+import com.example.demo.ip.dto.FederatedSearchResponse.SourceReport;
+import com.example.demo.ip.dto.FederatedSearchResponse.Status;
+import com.example.demo.ip.dto.IPSearchResultDTO;
+import com.example.demo.ip.dto.SearchBatch;
+import com.example.demo.monitoring.MonitoringService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SearchStreamServiceTest {
+
+    private final IPSearchService ipSearchService = mock(IPSearchService.class);
+    private final TrademarkClient trademarkClient = mock(TrademarkClient.class);
+    private final SearchStreamService service = new SearchStreamService(ipSearchService, trademarkClient,
+            mock(MonitoringService.class), 3, Duration.ofSeconds(2), Duration.ofSeconds(30), 4);
+    private final RecordingSink sink = new RecordingSink();
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void local_hits_go_first_then_patent_pages_until_a_short_page() throws Exception {
+        when(ipSearchService.searchLocalSource("solar")).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return results("L", 1);
+        });
+        // Page 0 repeats the local hit, which is not sent twice
+        when(ipSearchService.searchPatentSource("solar", 0)).thenReturn(
+                Stream.concat(results("L", 1).stream(), results("P", 19).stream()).toList());
+        when(ipSearchService.searchPatentSource("solar", 1)).thenReturn(results("Q", 5));
+        when(trademarkClient.searchTrademarks(anyString(), anyInt())).thenReturn(results("T", 2));
+
+        service.start("solar", sink);
+        assertThat(sink.done.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sink.batches.get(0).source()).isEqualTo(Source.LOCAL);
+        assertThat(sink.batches).filteredOn(batch -> batch.source() == Source.PATENTS)
+                .extracting(SearchBatch::page, batch -> batch.results().size())
+                .containsExactly(tuple(0, 19), tuple(1, 5));
+        verify(ipSearchService, never()).searchPatentSource("solar", 2);
+
+        assertThat(sink.reports).extracting(SourceReport::source, SourceReport::status, SourceReport::resultCount)
+                .containsExactly(
+                        tuple(Source.PATENTS, Status.OK, 25),
+                        tuple(Source.TRADEMARKS, Status.OK, 2),
+                        tuple(Source.LOCAL, Status.OK, 1));
+    }
+
+    @Test
+    void cancelling_interrupts_a_running_fetch_and_sends_nothing_more() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(ipSearchService.searchLocalSource("solar")).thenReturn(results("L", 1));
+        when(trademarkClient.searchTrademarks(anyString(), anyInt())).thenReturn(List.of());
+        when(ipSearchService.searchPatentSource(eq("solar"), anyInt())).thenAnswer(invocation -> {
+            fetching.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return results("P", 20);
+        });
+
+        SearchStreamService.Stream stream = service.start("solar", sink);
+        assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+        stream.cancel();
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sink.done.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(sink.batches).noneMatch(batch -> batch.source() == Source.PATENTS);
+    }
+
+    private static List<IPSearchResultDTO> results(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            IPSearchResultDTO dto = new IPSearchResultDTO();
+            dto.setApplicationNumber(prefix + "-" + i);
+            return dto;
+        }).toList();
+    }
+
+    private static final class RecordingSink implements SearchStreamService.Sink {
+
+        private final List<SearchBatch> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile List<SourceReport> reports;
+
+        @Override
+        public void batch(SearchBatch batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void done(List<SourceReport> sources) {
+            reports = sources;
+            done.countDown();
+        }
+    }
+}
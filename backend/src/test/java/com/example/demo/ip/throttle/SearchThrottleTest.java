@@ -0,0 +1,134 @@
+package com.example.demo.ip.throttle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchThrottleTest {
+
+    private final AtomicLong millis = new AtomicLong(Duration.ofMinutes(100).toMillis());
+
+    @Test
+    void rate_is_limited_over_a_sliding_window_with_a_retry_hint() {
+        SearchThrottle throttle = throttle(4, 2, 10);
+
+        for (int i = 0; i < 4; i++) {
+            throttle.release(assertAdmitted(throttle.tryAcquire("user:a", true)));
+        }
+        SearchThrottle.Decision rejected = throttle.tryAcquire("user:a", true);
+        assertThat(rejected.rejection()).isEqualTo(SearchThrottle.Rejection.RATE);
+        // The next window admits one more once a quarter of this one has slid out
+        assertThat(rejected.retryAfterSeconds()).isEqualTo(75);
+
+        // Anonymous principals have their own, lower limit; other keys are unaffected
+        throttle.release(assertAdmitted(throttle.tryAcquire("ip:10.0.0.1", false)));
+        throttle.release(assertAdmitted(throttle.tryAcquire("ip:10.0.0.1", false)));
+        assertThat(throttle.tryAcquire("ip:10.0.0.1", false).admitted()).isFalse();
+
+        // Half-way into the next window, half of the old requests still count
+        millis.addAndGet(Duration.ofSeconds(90).toMillis());
+        throttle.release(assertAdmitted(throttle.tryAcquire("user:a", true)));
+        throttle.release(assertAdmitted(throttle.tryAcquire("user:a", true)));
+        assertThat(throttle.tryAcquire("user:a", true).admitted()).isFalse();
+    }
+
+    @Test
+    void concurrent_searches_are_capped_per_principal() {
+        SearchThrottle throttle = throttle(100, 100, 10);
+
+        SearchThrottle.Decision first = assertAdmitted(throttle.tryAcquire("user:a", true));
+        assertAdmitted(throttle.tryAcquire("user:a", true));
+        assertThat(throttle.tryAcquire("user:a", true).rejection()).isEqualTo(SearchThrottle.Rejection.CONCURRENCY);
+
+        throttle.release(first);
+        assertAdmitted(throttle.tryAcquire("user:a", true));
+    }
+
+    @Test
+    void idle_principals_are_evicted_and_newcomers_share_an_entry_when_full() {
+        SearchThrottle throttle = throttle(100, 100, 2);
+
+        throttle.release(assertAdmitted(throttle.tryAcquire("ip:1", false)));
+        SearchThrottle.Decision running = assertAdmitted(throttle.tryAcquire("ip:2", false));
+
+        // Both active: a third principal goes to the shared overflow entry
+        throttle.release(assertAdmitted(throttle.tryAcquire("ip:3", false)));
+        assertThat(throttle.getStats()).containsEntry("overflowed", 1L).containsEntry("trackedPrincipals", 3);
+
+        millis.addAndGet(Duration.ofMinutes(11).toMillis());
+        throttle.evictIdle();
+
+        // ip:2 still has a search running
+        assertThat(throttle.getStats()).containsEntry("trackedPrincipals", 1).containsEntry("evicted", 2L);
+        throttle.release(running);
+    }
+
+    @Test
+    void filter_answers_429_with_retry_after_when_throttled() throws Exception {
+        SearchThrottleFilter filter = new SearchThrottleFilter(throttle(1, 1, 10), new ObjectMapper());
+
+        MockHttpServletResponse first = search(filter);
+        MockHttpServletResponse second = search(filter);
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(429);
+        // A full window has to slide out before an anonymous limit of 1 admits again
+        assertThat(second.getHeader("Retry-After")).isEqualTo("120");
+        assertThat(second.getContentAsString()).contains("\"status\":429", "\"path\":\"/api/ip/search\"");
+    }
+
+    @Test
+    void a_stream_holds_its_slot_until_the_async_response_completes() throws Exception {
+        SearchThrottleFilter filter = new SearchThrottleFilter(throttle(100, 100, 10), new ObjectMapper());
+
+        MockHttpServletRequest first = stream(filter);
+        stream(filter);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(streamRequest(), rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(429);
+
+        first.getAsyncContext().complete();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(streamRequest(), admitted, new MockFilterChain());
+        assertThat(admitted.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletRequest stream(SearchThrottleFilter filter) throws Exception {
+        MockHttpServletRequest request = streamRequest();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertThat(request.isAsyncStarted()).isTrue();
+        return request;
+    }
+
+    private static MockHttpServletRequest streamRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", SearchThrottleFilter.STREAM_PATH);
+        request.setRemoteAddr("10.0.0.9");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private MockHttpServletResponse search(SearchThrottleFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", SearchThrottleFilter.SEARCH_PATH);
+        request.setRemoteAddr("10.0.0.9");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private SearchThrottle throttle(int userLimit, int anonymousLimit, int maxKeys) {
+        return new SearchThrottle(Duration.ofMinutes(1), userLimit, anonymousLimit, 2,
+                Duration.ofMinutes(10), maxKeys, millis::get);
+    }
+
+    private static SearchThrottle.Decision assertAdmitted(SearchThrottle.Decision decision) {
+        assertThat(decision.admitted()).isTrue();
+        return decision;
+    }
+}
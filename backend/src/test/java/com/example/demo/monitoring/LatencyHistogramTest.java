@@ -0,0 +1,61 @@
+package com.example.demo.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    private final AtomicLong millis = new AtomicLong(600_000_000);
+    private final LatencyHistogram histogram = new LatencyHistogram(millis::get);
+
+    @Test
+    void percentiles_are_close_to_the_true_values_and_never_below_them() {
+        // 1ms .. 1000ms, one request each, plus one slow outlier
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1000L);
+        }
+        histogram.record(8_000_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(1);
+
+        assertThat(snapshot.count()).isEqualTo(1001);
+        assertThat(snapshot.p50Ms()).isBetween(501.0, 501.0 * 1.07);
+        assertThat(snapshot.p95Ms()).isBetween(951.0, 951.0 * 1.07);
+        assertThat(snapshot.p99Ms()).isBetween(991.0, 991.0 * 1.07);
+        assertThat(snapshot.maxMs()).isEqualTo(8000.0);
+        assertThat(snapshot.meanMs()).isCloseTo((500_500 + 8_000) / 1001.0, within(0.01));
+    }
+
+    @Test
+    void windows_slide_by_whole_minutes() {
+        histogram.record(200_000);
+        millis.addAndGet(3 * 60_000);
+        histogram.record(10_000);
+
+        assertThat(histogram.snapshot(1).count()).isEqualTo(1);
+        assertThat(histogram.snapshot(5).count()).isEqualTo(2);
+        assertThat(histogram.snapshot(5).maxMs()).isEqualTo(200.0);
+
+        // The ring reuses the old minute's slot once it is out of every window
+        millis.addAndGet(15 * 60_000);
+        histogram.record(10_000);
+        assertThat(histogram.snapshot(15).count()).isEqualTo(2);
+        assertThat(histogram.snapshot(15).maxMs()).isEqualTo(10.0);
+    }
+
+    @Test
+    void buckets_cover_the_range_without_gaps() {
+        int previous = -1;
+        for (long value = 0; value < 1L << 20; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(bucket).isBetween(previous, previous + 1);
+            assertThat(LatencyHistogram.highestValueIn(bucket)).isGreaterThanOrEqualTo(value);
+            previous = bucket;
+        }
+        assertThat(LatencyHistogram.bucketOf((1L << 32) - 1)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    }
+}
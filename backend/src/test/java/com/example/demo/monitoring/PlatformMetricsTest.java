@@ -0,0 +1,47 @@
+package com.example.demo.monitoring;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlatformMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PlatformMetrics metrics = new PlatformMetrics(registry);
+
+    @Test
+    void endpoint_timers_share_series_by_endpoint_and_outcome() {
+        metrics.endpointTimers("/api/ip/{id}").record(TimeUnit.MILLISECONDS.toNanos(20), false);
+        metrics.endpointTimers("/api/ip/{id}").record(TimeUnit.MILLISECONDS.toNanos(40), false);
+        metrics.endpointTimers("/api/ip/{id}").record(TimeUnit.MILLISECONDS.toNanos(5), true);
+
+        Timer success = registry.get("platform.api.requests")
+                .tag("endpoint", "/api/ip/{id}").tag("outcome", "success").timer();
+        assertThat(success.count()).isEqualTo(2);
+        assertThat(success.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(60.0);
+        assertThat(registry.get("platform.api.requests").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.get("platform.api.requests").timers()).hasSize(2);
+    }
+
+    @Test
+    void only_phases_a_request_went_through_are_recorded() {
+        RequestTiming timing = RequestTiming.begin();
+        try {
+            RequestTiming.stop(RequestTiming.Phase.JWT, RequestTiming.start() - 1_000_000);
+        } finally {
+            RequestTiming.end();
+        }
+
+        metrics.recordPhases(timing);
+        metrics.recordTransfer(0, 512);
+
+        assertThat(registry.get("platform.api.phase").tag("phase", "jwt").timer().count()).isEqualTo(1);
+        assertThat(registry.get("platform.api.phase").tag("phase", "jpa").timer().count()).isZero();
+        assertThat(registry.get("platform.http.sent").counter().count()).isEqualTo(512.0);
+        assertThat(registry.get("platform.http.received").counter().count()).isZero();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Constructor;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of {@link MonitoringService#recordRequest} per request on 1, 8 and 64
+ * threads hitting the same endpoints; with the traffic ring and adders it
+ * should stay roughly flat as threads are added. The legacy benchmarks are
+ * the old traffic history: AtomicLong counters and a point appended to a
+ * synchronized ArrayList (trimmed with remove(0)) on every request.
+ *
+ * Not part of the unit test run. JMH forks a JVM, so it needs a real classpath:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *     com.example.demo.monitoring.RecordRequestBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordRequestBenchmark {
+
+    private static final String[] PATHS = { "/api/ip/search", "/api/ip/42", "/api/admin/monitoring/all-data" };
+
+    private MonitoringService monitoringService;
+
+    private final AtomicLong legacyRequests = new AtomicLong();
+    private final AtomicLong legacyErrors = new AtomicLong();
+    private final List<String> legacyHistory = new ArrayList<>();
+
+    @Setup
+    public void createService() throws Exception {
+        // recordRequest touches none of the other collaborators
+        Constructor<?> constructor = MonitoringService.class.getDeclaredConstructors()[0];
+        Object[] args = new Object[constructor.getParameterCount()];
+        Class<?>[] types = constructor.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == PlatformMetrics.class) {
+                args[i] = new PlatformMetrics(new SimpleMeterRegistry());
+            }
+        }
+        monitoringService = (MonitoringService) constructor.newInstance(args);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void recordRequest1Thread() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordRequest8Threads() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void recordRequest64Threads() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void legacyTrafficHistory1Thread() {
+        legacyRecord();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void legacyTrafficHistory64Threads() {
+        legacyRecord();
+    }
+
+    private void record() {
+        long n = Thread.currentThread().getId();
+        monitoringService.recordRequest(PATHS[(int) (n % PATHS.length)], 12_000_000, n % 50 == 0);
+    }
+
+    private void legacyRecord() {
+        long requests = legacyRequests.incrementAndGet();
+        String point = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")) + requests;
+        synchronized (legacyHistory) {
+            legacyHistory.add(point);
+            if (legacyHistory.size() > 60) {
+                legacyHistory.remove(0);
+            }
+        }
+        legacyErrors.get();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(RecordRequestBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
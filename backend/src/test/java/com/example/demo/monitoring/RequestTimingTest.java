@@ -0,0 +1,107 @@
+package com.example.demo.monitoring;
+
+import com.example.demo.config.DataSourceTimingConfig;
+import com.example.demo.ip.repository.SerpApiQuotaUsageRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Import(DataSourceTimingConfig.class)
+public class RequestTimingTest {
+
+    @Autowired
+    private SerpApiQuotaUsageRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void phases_of_a_request_are_timed_and_jpa_is_counted_inside_the_controller() throws Exception {
+        MonitoringService monitoringService = mock(MonitoringService.class);
+        RequestMonitoringFilter filter = new RequestMonitoringFilter(monitoringService);
+        ControllerTimingInterceptor interceptor = new ControllerTimingInterceptor();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ip/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            long jwt = RequestTiming.start();
+            sleep(2);
+            RequestTiming.stop(RequestTiming.Phase.JWT, jwt);
+
+            interceptor.preHandle(request, response, null);
+            repository.count();
+            sleep(5);
+            interceptor.afterCompletion(request, response, null, null);
+        });
+
+        ArgumentCaptor<RequestTiming> timing = ArgumentCaptor.forClass(RequestTiming.class);
+        verify(monitoringService).recordRequest(eq("/api/ip/1"), timing.capture(), eq(false));
+
+        RequestTiming recorded = timing.getValue();
+        assertThat(recorded.phaseNanos(RequestTiming.Phase.JWT)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(2));
+        assertThat(recorded.phaseNanos(RequestTiming.Phase.JPA)).isPositive();
+        assertThat(recorded.phaseNanos(RequestTiming.Phase.CONTROLLER))
+                .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5) + recorded.phaseNanos(RequestTiming.Phase.JPA));
+        assertThat(recorded.phaseNanos(RequestTiming.Phase.EXTERNAL_HTTP)).isZero();
+
+        // Once the request is over, queries are no longer attributed to it
+        long jpa = recorded.phaseNanos(RequestTiming.Phase.JPA);
+        repository.count();
+        assertThat(recorded.phaseNanos(RequestTiming.Phase.JPA)).isEqualTo(jpa);
+    }
+
+    @Test
+    void jdbc_template_queries_count_as_jpa_time() throws Exception {
+        MonitoringService monitoringService = mock(MonitoringService.class);
+        RequestMonitoringFilter filter = new RequestMonitoringFilter(monitoringService);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/ip/search"), new MockHttpServletResponse(),
+                (req, res) -> jdbcTemplate.queryForList("SELECT id FROM ip_assets", Long.class));
+
+        ArgumentCaptor<RequestTiming> timing = ArgumentCaptor.forClass(RequestTiming.class);
+        verify(monitoringService).recordRequest(eq("/api/ip/search"), timing.capture(), eq(false));
+        assertThat(timing.getValue().phaseNanos(RequestTiming.Phase.JPA)).isPositive();
+    }
+
+    @Test
+    void endpoint_metrics_average_each_phase_per_request() throws Exception {
+        SystemHealthData.EndpointMetric metric = new SystemHealthData.EndpointMetric();
+        RequestTiming timing = RequestTiming.begin();
+        try {
+            long start = RequestTiming.start();
+            sleep(4);
+            RequestTiming.stop(RequestTiming.Phase.CONTROLLER, start);
+        } finally {
+            RequestTiming.end();
+        }
+
+        metric.recordPhases(timing);
+        metric.recordPhases(timing);
+
+        assertThat(metric.getPhases()).containsKeys("jwt", "controller", "jpa", "external_http", "other");
+        assertThat(metric.getPhases().get("controller")).isGreaterThanOrEqualTo(4.0);
+        assertThat(metric.getPhases().get("jpa")).isZero();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SystemMetricsSamplerTest {
+
+    private static final List<String> NET_DEV = List.of(
+            "Inter-|   Receive                                                |  Transmit",
+            " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed",
+            "    lo: 9000000    1000    0    0    0     0          0         0  9000000    1000    0    0    0     0       0          0",
+            "  eth0: 1500000    2000    0    0    0     0          0         0   250000    1500    0    0    0     0       0          0",
+            "  eth1:  500000     100    0    0    0     0          0         0    50000     100    0    0    0     0       0          0");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void proc_files_are_parsed_without_loopback_and_missing_files_report_minus_one() {
+        assertThat(SystemMetricsSampler.parseNetDev(NET_DEV)).containsExactly(2_000_000, 300_000);
+        assertThat(SystemMetricsSampler.parseProcIo(List.of("rchar: 10", "read_bytes: 4096", "write_bytes: 8192")))
+                .containsExactly(4096, 8192);
+
+        assertThat(SystemMetricsSampler.parseNetDev(List.of())).containsExactly(-1, -1);
+        assertThat(SystemMetricsSampler.parseProcIo(List.of())).containsExactly(-1, -1);
+    }
+
+    @Test
+    void counters_become_rates_and_the_series_is_bounded() throws Exception {
+        Path io = dir.resolve("io");
+        Path netDev = dir.resolve("dev");
+        Files.write(io, List.of("read_bytes: 0", "write_bytes: 0"));
+        Files.write(netDev, NET_DEV);
+
+        AtomicLong millis = new AtomicLong(1_000);
+        SystemMetricsSampler sampler = new SystemMetricsSampler(3, io, netDev, millis::get);
+
+        Files.write(io, List.of("read_bytes: 1000000", "write_bytes: 0"));
+        sampler.recordTransfer(0, 5_000);
+        SystemMetricsSampler.Sample sample = sampler.sample();
+
+        assertThat(sample.diskReadBytesPerSec()).isPositive();
+        assertThat(sample.diskWriteBytesPerSec()).isZero();
+        assertThat(sample.networkReceivedBytesPerSec()).isZero();
+        assertThat(sample.httpSentBytesPerSec()).isPositive();
+        assertThat(sample.httpReceivedBytesPerSec()).isZero();
+        assertThat(sample.heapUsedPercent()).isBetween(0.0, 100.0);
+        assertThat(sampler.getLatest()).isSameAs(sample);
+
+        for (int i = 0; i < 4; i++) {
+            millis.addAndGet(5_000);
+            sampler.sample();
+        }
+        assertThat(sampler.getSamples()).hasSize(3);
+        assertThat(sampler.getSamples().get(0).timeMillis()).isEqualTo(11_000);
+
+        // A file that disappears is reported as unavailable, not as a huge drop
+        Files.delete(netDev);
+        assertThat(sampler.sample().networkReceivedBytesPerSec()).isEqualTo(-1);
+    }
+
+    @Test
+    void response_bytes_are_counted_through_the_stream_and_the_writer() throws Exception {
+        CountingResponseWrapper response = new CountingResponseWrapper(new MockHttpServletResponse());
+        response.getOutputStream().write(new byte[100], 0, 40);
+        response.getOutputStream().write(1);
+        response.getWriter().write("{\"ok\":true}");
+
+        assertThat(response.getCount()).isEqualTo(52);
+    }
+}
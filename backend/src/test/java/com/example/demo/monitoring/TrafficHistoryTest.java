@@ -0,0 +1,66 @@
+package com.example.demo.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class TrafficHistoryTest {
+
+    private final AtomicLong millis = new AtomicLong(1_000_000);
+    private final TrafficHistory history = new TrafficHistory(10_000, 6, millis::get);
+
+    @Test
+    void requests_are_counted_per_bucket_with_empty_buckets_filled_in() {
+        history.record(false);
+        history.record(true);
+        millis.addAndGet(20_000);
+        history.record(false);
+
+        assertThat(history.snapshot())
+                .extracting(TrafficHistory.Point::startMillis, TrafficHistory.Point::requests, TrafficHistory.Point::errors)
+                .containsExactly(
+                        tuple(1_000_000L, 2L, 1L),
+                        tuple(1_010_000L, 0L, 0L),
+                        tuple(1_020_000L, 1L, 0L));
+    }
+
+    @Test
+    void the_ring_keeps_only_the_last_buckets_and_reuses_their_slots() {
+        for (int i = 0; i < 10; i++) {
+            history.record(false);
+            millis.addAndGet(10_000);
+        }
+        history.record(true);
+
+        List<TrafficHistory.Point> points = history.snapshot();
+        assertThat(points).hasSize(6);
+        assertThat(points.get(0).startMillis()).isEqualTo(1_050_000L);
+        assertThat(points).extracting(TrafficHistory.Point::requests).containsExactly(1L, 1L, 1L, 1L, 1L, 1L);
+        assertThat(points.get(5).errors()).isEqualTo(1L);
+    }
+
+    @Test
+    void concurrent_requests_are_all_counted() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    history.record(i % 10 == 0);
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(history.snapshot()).singleElement()
+                .returns(80_000L, TrafficHistory.Point::requests)
+                .returns(8_000L, TrafficHistory.Point::errors);
+    }
+}
@@ -79,6 +79,7 @@ function App() {
             <Route path="/ip-search" element={<IPSearch />} />
             <Route path="/search-results" element={<SearchResults />} />
             <Route path="/ip/:id" element={<IPDetails />} />
+            <Route path="/ip/number/:applicationNumber" element={<IPDetails />} />
             <Route path="/legal-status" element={<LegalStatusDashboard />} />
 
           </Routes>
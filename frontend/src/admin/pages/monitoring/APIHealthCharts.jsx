@@ -9,6 +9,7 @@ const APIHealthCharts = () => {
   const [loading, setLoading] = useState(true);
   const [trafficData, setTrafficData] = useState([]);
   const [responseData, setResponseData] = useState([]);
+  const [serpApiQuota, setSerpApiQuota] = useState(null);
 
   // Generate mock data for charts
   const generateMockData = () => {
@@ -44,6 +45,7 @@ const APIHealthCharts = () => {
 
       // Extract relevant data from the integrated response
       setStats(monitoringData.systemHealth || {});
+      setSerpApiQuota(monitoringData.searchPipeline?.serpApiQuota || null);
       const trafficChartData = monitoringData.chartData?.traffic || [];
       const responseChartData = monitoringData.chartData?.responsePerformance || [];
 
@@ -164,6 +166,43 @@ const APIHealthCharts = () => {
         </div>
       </div>
 
+      {/* SerpAPI Quota */}
+      {serpApiQuota && (
+        <div className="bg-white/10 backdrop-blur-xl border border-white/20 rounded-xl p-6">
+          <h3 className="text-xl font-semibold text-white mb-4">SerpAPI Quota</h3>
+          <div className="grid grid-cols-1 md:grid-cols-3 gap-4">
+            <div>
+              <p className="text-gray-400 text-sm">This Month ({serpApiQuota.month})</p>
+              <p className="text-2xl font-bold text-white">
+                {serpApiQuota.monthCalls.toLocaleString()}
+                {serpApiQuota.monthlyLimit > 0 && ` / ${serpApiQuota.monthlyLimit.toLocaleString()}`}
+              </p>
+              {serpApiQuota.monthlyLimit > 0 && (
+                <div className="mt-2 h-2 bg-black/30 rounded-full overflow-hidden">
+                  <div
+                    className={`h-full ${serpApiQuota.monthlyUsedPercent >= 90 ? 'bg-red-500' : serpApiQuota.monthlyUsedPercent >= 70 ? 'bg-yellow-500' : 'bg-green-500'}`}
+                    style={{ width: `${Math.min(100, serpApiQuota.monthlyUsedPercent)}%` }}
+                  ></div>
+                </div>
+              )}
+            </div>
+            <div>
+              <p className="text-gray-400 text-sm">Today ({serpApiQuota.day})</p>
+              <p className="text-2xl font-bold text-white">
+                {serpApiQuota.dayCalls.toLocaleString()}
+                {serpApiQuota.dailyLimit > 0 && ` / ${serpApiQuota.dailyLimit.toLocaleString()}`}
+              </p>
+            </div>
+            <div>
+              <p className="text-gray-400 text-sm">Rejected (Interactive / Background)</p>
+              <p className="text-2xl font-bold text-white">
+                {serpApiQuota.rejectedInteractive} / {serpApiQuota.rejectedBackground}
+              </p>
+            </div>
+          </div>
+        </div>
+      )}
+
       {/* Charts Grid - Placeholder for Visuals */}
       <div className="grid grid-cols-1 lg:grid-cols-2 gap-6">
         <div className="bg-white/10 backdrop-blur-xl border border-white/20 rounded-xl p-6">
@@ -217,6 +256,8 @@ const APIHealthCharts = () => {
                 }}
               />
               <Bar dataKey="avgResponse" fill="#10B981" name="Avg Response Time (ms)" />
+              <Bar dataKey="p95" fill="#F59E0B" name="p95, last 5 min (ms)" />
+              <Bar dataKey="p99" fill="#EF4444" name="p99, last 5 min (ms)" />
             </BarChart>
           </ResponsiveContainer>
         </div>
@@ -237,6 +278,19 @@ const APIHealthCharts = () => {
                 </div>
                 <div className="flex gap-6 text-sm text-gray-400">
                   <span>Avg: {endpoint.averageResponseTime?.toFixed(0)}ms</span>
+                  {endpoint.latency?.["5m"]?.count > 0 && (
+                    <span title="Last 5 minutes">
+                      p50/p95/p99: {endpoint.latency["5m"].p50Ms.toFixed(0)}/
+                      {endpoint.latency["5m"].p95Ms.toFixed(0)}/
+                      {endpoint.latency["5m"].p99Ms.toFixed(0)}ms · Max: {endpoint.latency["5m"].maxMs.toFixed(0)}ms
+                    </span>
+                  )}
+                  {endpoint.phases && Object.keys(endpoint.phases).length > 0 && (
+                    <span title="Average per request; JPA and HTTP are part of the controller time">
+                      JWT {endpoint.phases.jwt}ms · Controller {endpoint.phases.controller}ms
+                      (JPA {endpoint.phases.jpa}ms, HTTP {endpoint.phases.external_http}ms)
+                    </span>
+                  )}
                   <span>Reqs: {endpoint.requestCount}</span>
                   <span>Errs: {endpoint.errorCount}</span>
                   <span className="capitalize px-2 py-0.5 rounded bg-white/5">{endpoint.status}</span>
@@ -10,6 +10,7 @@ const LiveTraffic = () => {
     activeConnections: 0,
     bandwidth: 0
   });
+  const [serverLoad, setServerLoad] = useState(null);
   const [loading, setLoading] = useState(true);
 
   const fetchTrafficData = async () => {
@@ -25,6 +26,7 @@ const LiveTraffic = () => {
         
         setTrafficData(trafficDataPoints.length > 0 ? trafficDataPoints : generateMockTrafficData());
         setRealtimeStats(stats);
+        setServerLoad(monitoringData.trafficData.serverLoad || null);
       } else {
         setTrafficData(generateMockTrafficData());
         setRealtimeStats(generateMockRealtimeStats());
@@ -110,7 +112,11 @@ const LiveTraffic = () => {
         <div className="bg-white/10 backdrop-blur-xl border border-white/20 rounded-xl p-4">
           <p className="text-gray-400 text-sm">Bandwidth (MB/s)</p>
           <p className="text-2xl font-bold text-white">{realtimeStats.bandwidth}</p>
-          <p className="text-xs text-purple-400">95% capacity</p>
+          <p className="text-xs text-purple-400">
+            {serverLoad && serverLoad.cpuUsage >= 0
+              ? `CPU ${serverLoad.cpuUsage.toFixed(0)}% · heap ${serverLoad.memoryUsage.toFixed(0)}%`
+              : 'server load n/a'}
+          </p>
         </div>
       </div>
 
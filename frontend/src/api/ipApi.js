@@ -28,6 +28,7 @@ export async function searchIP({
   query,
   type = "PATENT",
   source = "EXTERNAL",
+  page = 0,
 }) {
   const controller = new AbortController();
   const timeout = setTimeout(() => controller.abort(), 30000); // 30s timeout
@@ -42,6 +43,7 @@ export async function searchIP({
         query,
         type,
         source,
+        page,
       }),
       signal: controller.signal,
     });
@@ -72,12 +74,28 @@ export async function searchIP({
  * @returns {Promise<Object>} - The IP asset details
  */
 export async function getIPDetails(id) {
+  // Use /api/ip/{id} endpoint which returns IPSearchResultDTO with all fields including priorityDate, grantDate, updatedOn
+  return fetchIPDetails(`${BASE_URL}/api/ip/${id}`);
+}
+
+/**
+ * Get IP details by application number, for search results without an id
+ * (fresh external results are stored in the background)
+ * @param {string} applicationNumber
+ * @returns {Promise<Object>} - The IP asset details
+ */
+export async function getIPDetailsByApplicationNumber(applicationNumber) {
+  return fetchIPDetails(
+    `${BASE_URL}/api/ip/by-number?applicationNumber=${encodeURIComponent(applicationNumber)}`
+  );
+}
+
+async function fetchIPDetails(url) {
   const controller = new AbortController();
   const timeout = setTimeout(() => controller.abort(), 10000); // 10s timeout
 
   try {
-    // Use /api/ip/{id} endpoint which returns IPSearchResultDTO with all fields including priorityDate, grantDate, updatedOn
-    const response = await fetch(`${BASE_URL}/api/ip/${id}`, {
+    const response = await fetch(url, {
       method: "GET",
       headers: {
         "Content-Type": "application/json",
@@ -1,9 +1,10 @@
 import React, { useState, useEffect } from "react";
 import { useParams, useNavigate, useLocation } from "react-router-dom";
-import { getIPDetails } from "../../../api/ipApi";
+import { getIPDetails, getIPDetailsByApplicationNumber } from "../../../api/ipApi";
 
 const IPDetails = () => {
-  const { id } = useParams();
+  // Results without an id (not stored yet) are opened by application number
+  const { id, applicationNumber } = useParams();
   const navigate = useNavigate();
   const location = useLocation();
 
@@ -102,8 +103,10 @@ Generated from IP Portal
   useEffect(() => {
     const fetchIPDetails = async () => {
       try {
-        setLoading(true);
-        const data = await getIPDetails(id);
+        if (!initialState) setLoading(true);
+        const data = applicationNumber
+          ? await getIPDetailsByApplicationNumber(applicationNumber)
+          : await getIPDetails(id);
         console.log("Fetched IP Details:", data);
         // Map all fields including priorityDate, grantDate, and updatedOn
         setIp({
@@ -124,14 +127,16 @@ Generated from IP Portal
           status: data.legalStatus || data.status,
         });
       } catch (err) {
-        setError("Failed to load IP details");
+        // By number, the asset may not be stored yet: keep showing the search result
+        if (!(applicationNumber && initialState)) setError("Failed to load IP details");
         console.error(err);
       } finally {
         setLoading(false);
       }
     };
-    if (!initialState) fetchIPDetails();
-  }, [id]);
+    // LOCAL search results only carry the card fields (abstract snippet), so stored assets are reloaded in full
+    if (!initialState || applicationNumber || /^\d+$/.test(String(id))) fetchIPDetails();
+  }, [id, applicationNumber]);
 
   useEffect(() => {
     if (ip) console.log("IP DETAILS FROM API:", ip);
@@ -11,6 +11,8 @@ const SearchResults = () => {
   const [filterStatus, setFilterStatus] = useState("");
   const [currentPage, setCurrentPage] = useState(1);
   const itemsPerPage = 10;
+  // EXTERNAL search returns 20 results per server page; the next one is prefetched
+  const externalPageSize = 20;
 
   // API Data
   const [results, setResults] = useState([]);
@@ -22,6 +24,41 @@ const SearchResults = () => {
 
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState(null);
+  const [serverPage, setServerPage] = useState(0);
+  const [hasMore, setHasMore] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
+
+  const normalizeResults = (data, offset = 0) =>
+    Array.isArray(data)
+      ? data.map((item, index) => ({
+        // Fresh EXTERNAL results have no id until stored; the application number identifies them
+        id: item.id ?? null,
+        key: item.applicationNumber || `${item.id ?? "result"}-${offset + index}`,
+        title: item.title,
+        number: item.applicationNumber || "N/A",
+        applicationNumber: item.applicationNumber,
+        assignee: item.ownerName || "Unknown",
+        inventor: item.inventorName || null,
+        jurisdiction: item.country || "Unknown",
+        date: item.filingDate || "N/A",
+        status: item.legalStatus || "Unknown",
+        abstract: item.abstractText || "",
+        // Add date fields for IPDetails
+        filingDate: item.filingDate,
+        publicationDate: item.publicationDate,
+        grantDate: item.grantDate,
+        priorityDate: item.priorityDate,
+        legalStatus: item.legalStatus,
+        assetType: item.assetType,
+        abstractText: item.abstractText,
+        ownerName: item.ownerName,
+        inventorName: item.inventorName,
+        referenceSource: item.referenceSource,
+        patentLink: item.patentLink,
+        pdfLink: item.pdfLink,
+        thumbnail: item.thumbnail,
+      }))
+      : [];
 
   useEffect(() => {
     if (!query) return;
@@ -37,36 +74,12 @@ const SearchResults = () => {
           source,
         });
 
-        const normalized = Array.isArray(data)
-          ? data.map((item, index) => ({
-            id: item.id ?? `${item.number}-${index}`,
-            title: item.title,
-            number: item.applicationNumber || "N/A",
-            assignee: item.ownerName || "Unknown",
-            inventor: item.inventorName || null,
-            jurisdiction: item.country || "Unknown",
-            date: item.filingDate || "N/A",
-            status: item.legalStatus || "Unknown",
-            abstract: item.abstractText || "",
-            // Add date fields for IPDetails
-            filingDate: item.filingDate,
-            publicationDate: item.publicationDate,
-            grantDate: item.grantDate,
-            priorityDate: item.priorityDate,
-            legalStatus: item.legalStatus,
-            assetType: item.assetType,
-            abstractText: item.abstractText,
-            ownerName: item.ownerName,
-            inventorName: item.inventorName,
-            referenceSource: item.referenceSource,
-            patentLink: item.patentLink,
-            pdfLink: item.pdfLink,
-            thumbnail: item.thumbnail,
-          }))
-          : [];
+        const normalized = normalizeResults(data);
 
         setResults(normalized);
         setTotalResults(normalized.length);
+        setServerPage(0);
+        setHasMore(source === "EXTERNAL" && normalized.length === externalPageSize);
 
         // 🔴 ADD THESE
         setCurrentPage(1);
@@ -86,6 +99,23 @@ const SearchResults = () => {
     fetchResults();
   }, [query, type, source]);
 
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const data = await searchIP({ query, type, source, page: serverPage + 1 });
+      const normalized = normalizeResults(data, results.length);
+      setResults((prev) => [...prev, ...normalized]);
+      setTotalResults((prev) => prev + normalized.length);
+      setServerPage((p) => p + 1);
+      setHasMore(normalized.length === externalPageSize);
+    } catch (err) {
+      console.error(err);
+      setHasMore(false);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   // Apply filters and sorting
   const getFilteredResults = () => {
     let filtered = [...results];
@@ -333,7 +363,7 @@ const SearchResults = () => {
               <div className="space-y-4">
                 {paginatedResults.map((result) => (
                   <div
-                    key={result.id}
+                    key={result.key}
                     className="bg-white/10 backdrop-blur-md rounded-xl p-6 border border-white/20 hover:bg-white/15 transition-all cursor-pointer"
                   >
                     <div className="flex justify-between items-start mb-3">
@@ -403,9 +433,12 @@ const SearchResults = () => {
                       <button
                         className="px-4 py-2 bg-blue-600 hover:bg-blue-700 text-white rounded-lg text-sm transition-colors"
                         onClick={() =>
-                          navigate(`/ip/${result.id}`, {
-                            state: { ip: result },
-                          })
+                          navigate(
+                            result.id != null
+                              ? `/ip/${result.id}`
+                              : `/ip/number/${encodeURIComponent(result.applicationNumber)}`,
+                            { state: { ip: result } }
+                          )
                         }
                       >
                         View Details
@@ -462,6 +495,18 @@ const SearchResults = () => {
                 </button>
               </div>
             )}
+
+            {hasMore && (
+              <div className="mt-4 flex justify-center">
+                <button
+                  onClick={loadMore}
+                  disabled={loadingMore}
+                  className="px-6 py-2 bg-blue-600 text-white rounded-lg hover:bg-blue-700 disabled:opacity-50 disabled:cursor-not-allowed transition-colors"
+                >
+                  {loadingMore ? "Loading..." : "Load more results"}
+                </button>
+              </div>
+            )}
           </div>
         </div>
       </div>